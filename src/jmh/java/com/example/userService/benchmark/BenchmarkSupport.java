@@ -0,0 +1,69 @@
+package com.example.userService.benchmark;
+
+import com.example.userService.security.JwtKeyRing;
+import com.example.userService.security.JwtUtil;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.lang.reflect.Field;
+
+/**
+ * Helpers for wiring application components outside of a Spring context.
+ */
+public final class BenchmarkSupport {
+
+    public static final String SECRET =
+            "NzQzZDYxZjctNjQyYi00YjE0LWEzNmEtZjQ2YTljMTY2YTg2MjY1NDM5NzktZWZhZi00NDM5LTk2ODgtODhjODExOTk1NTc4";
+
+    private BenchmarkSupport() {
+    }
+
+    /**
+     * Builds an initialized {@link JwtUtil} with the given claims cache capacity.
+     *
+     * @param cacheMaxSize claims cache capacity; {@code 0} disables the cache
+     * @return a ready to use {@link JwtUtil}
+     */
+    public static JwtUtil newJwtUtil(int cacheMaxSize) {
+        var keyRing = new JwtKeyRing();
+        setField(keyRing, "path", "");
+        try {
+            keyRing.init();
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+        return newJwtUtil(cacheMaxSize, keyRing);
+    }
+
+    /**
+     * Builds an initialized {@link JwtUtil} that signs with the given key ring.
+     *
+     * @param cacheMaxSize claims cache capacity; {@code 0} disables the cache
+     * @param keyRing      an initialized key ring; an empty one signs with the HMAC secret
+     * @return a ready to use {@link JwtUtil}
+     */
+    public static JwtUtil newJwtUtil(int cacheMaxSize, JwtKeyRing keyRing) {
+        var jwtUtil = new JwtUtil(keyRing, new SimpleMeterRegistry());
+        setField(jwtUtil, "secret", SECRET);
+        setField(jwtUtil, "expiration", 3_600_000L);
+        setField(jwtUtil, "cacheMaxSize", cacheMaxSize);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    /**
+     * Sets a private field, emulating Spring's {@code @Value} injection.
+     *
+     * @param target the object to update
+     * @param name   the field name
+     * @param value  the value to set
+     */
+    public static void setField(Object target, String name, Object value) {
+        try {
+            Field field = target.getClass().getDeclaredField(name);
+            field.setAccessible(true);
+            field.set(target, value);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot set field " + name, e);
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.userService.benchmark;
+
+import com.example.userService.security.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import javax.crypto.SecretKey;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and allocation of {@link JwtUtil} token operations.
+ * <p>
+ * The {@code perCall*} benchmarks reproduce the previous implementation, which built a new
+ * parser and looked up a new serializer for every call, so they can be compared side by side.
+ * Run with {@code -prof gc} (enabled by default in the {@code jmh} task) to get bytes per operation.
+ * {@code cacheMaxSize = 0} measures raw verification without the claims cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class JwtUtilBenchmark {
+
+    @Param({"0", "10000"})
+    private int cacheMaxSize;
+
+    private JwtUtil jwtUtil;
+
+    private SecretKey secretKey;
+
+    private String token;
+
+    @Setup
+    public void setUp() {
+        jwtUtil = BenchmarkSupport.newJwtUtil(cacheMaxSize);
+        secretKey = Keys.hmacShaKeyFor(Base64.getDecoder().decode(BenchmarkSupport.SECRET));
+        token = jwtUtil.generateToken("benchmark@example.com");
+    }
+
+    @Benchmark
+    public String generate() {
+        return jwtUtil.generateToken("benchmark@example.com");
+    }
+
+    @Benchmark
+    public boolean validate() {
+        return jwtUtil.isValidToken(token);
+    }
+
+    @Benchmark
+    public String parse() {
+        return jwtUtil.getUsernameFromToken(token);
+    }
+
+    @Benchmark
+    public String perCallGenerate() {
+        var now = Instant.now();
+        return Jwts.builder()
+                .setSubject("benchmark@example.com")
+                .setIssuedAt(Date.from(now))
+                .setExpiration(Date.from(now.plusMillis(3_600_000L)))
+                .signWith(secretKey, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    @Benchmark
+    public boolean perCallValidate() {
+        return Jwts.parserBuilder()
+                .setSigningKey(secretKey)
+                .build()
+                .parseClaimsJws(token) != null;
+    }
+
+    @Benchmark
+    public String perCallParse() {
+        Claims claims = Jwts.parserBuilder()
+                .setSigningKey(secretKey)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+        return claims.getSubject();
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.userService.benchmark;
+
+import com.example.userService.dto.PhoneDto;
+import com.example.userService.entity.Phone;
+import com.example.userService.factory.PhoneServiceFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and allocation of the {@link PhoneServiceFactory} conversions for phone sets of different sizes.
+ * <p>
+ * {@code phones = 0} measures the fixed cost of a request without phones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class PhoneServiceFactoryBenchmark {
+
+    @Param({"0", "1", "5", "50"})
+    private int phones;
+
+    private Set<PhoneDto> dtos;
+
+    private Set<Phone> entities;
+
+    @Setup
+    public void setUp() {
+        dtos = new HashSet<>();
+        entities = new HashSet<>();
+        for (int i = 0; i < phones; i++) {
+            dtos.add(new PhoneDto(null, 3_000_000L + i, 1, "57"));
+            var phone = new Phone();
+            phone.setId(UUID.randomUUID());
+            phone.setNumber(3_000_000L + i);
+            phone.setCityCode(1);
+            phone.setCountryCode("57");
+            entities.add(phone);
+        }
+    }
+
+    @Benchmark
+    public Set<Phone> fromDtoList() {
+        return PhoneServiceFactory.fromDtoList(dtos);
+    }
+
+    @Benchmark
+    public Set<PhoneDto> toDtoList() {
+        return PhoneServiceFactory.toDtoList(entities);
+    }
+}
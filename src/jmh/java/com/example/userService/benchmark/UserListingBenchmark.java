@@ -0,0 +1,138 @@
+package com.example.userService.benchmark;
+
+import com.example.userService.UserServiceApplication;
+import com.example.userService.dto.UserPage;
+import com.example.userService.dto.UserResponse;
+import com.example.userService.entity.User;
+import com.example.userService.factory.UserServiceDtoFactory;
+import com.example.userService.repository.UserCursor;
+import com.example.userService.repository.UserSearchCriteria;
+import com.example.userService.service.UserListingService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.nio.ByteBuffer;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Latency of one page of the user listing at different depths of a large table.
+ * <p>
+ * {@code keyset} is the {@code GET /user} implementation, which seeks past a cursor; {@code offset} reads the
+ * same page with {@code OFFSET}, as back-office tooling used to. Keyset latency should stay flat as
+ * {@code depth} grows, while offset latency grows with the number of rows skipped.
+ * The application runs in-process against an in-memory H2 database seeded with {@code users} users.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Fork(value = 1, jvmArgsAppend = "-Xmx4g")
+public class UserListingBenchmark {
+
+    private static final int PAGE_SIZE = 50;
+
+    private static final int SEED_BATCH = 100_000;
+
+    private static final String SEQUENTIAL_ID = "CAST(LPAD(CAST(X AS VARCHAR), 32, '0') AS BINARY)";
+
+    private static final UserSearchCriteria NO_FILTERS = UserSearchCriteria.builder().build();
+
+    @Param({"1000000"})
+    private int users;
+
+    /** Position of the requested page, as a fraction of the table. */
+    @Param({"0.0", "0.5", "0.99"})
+    private double depth;
+
+    private ConfigurableApplicationContext context;
+
+    private UserListingService listingService;
+
+    private UserServiceDtoFactory userServiceDtoFactory;
+
+    private EntityManager entityManager;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    private String cursor;
+
+    private int offset;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = new SpringApplicationBuilder(UserServiceApplication.class)
+                .properties(
+                        "server.port=0",
+                        "spring.datasource.url=jdbc:h2:mem:listing-benchmark;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.show-sql=false",
+                        "security.password.calibrate=false",
+                        "user.bloom.enabled=false",
+                        "logging.level.root=WARN")
+                .run();
+        listingService = context.getBean(UserListingService.class);
+        userServiceDtoFactory = context.getBean(UserServiceDtoFactory.class);
+        entityManager = context.getBean(EntityManager.class);
+        readOnlyTransaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        readOnlyTransaction.setReadOnly(true);
+
+        var jdbcTemplate = context.getBean(JdbcTemplate.class);
+        for (int start = 1; start <= users; start += SEED_BATCH) {
+            int end = Math.min(users, start + SEED_BATCH - 1);
+            jdbcTemplate.update("INSERT INTO users (id, email, name, password, is_active, created, last_login) "
+                    + "SELECT " + SEQUENTIAL_ID + ", CONCAT('user', X, '@example.com'), CONCAT('User ', X), 'secret', "
+                    + "MOD(X, 10) <> 0, DATEADD('SECOND', X, TIMESTAMP '2020-01-01 00:00:00'), CURRENT_TIMESTAMP "
+                    + "FROM SYSTEM_RANGE(?, ?)", start, end);
+            jdbcTemplate.update("INSERT INTO phone (id, number, city_code, country_code, user_id) "
+                    + "SELECT " + SEQUENTIAL_ID + ", X, 1, CASE MOD(X, 3) WHEN 0 THEN '57' ELSE '1' END, "
+                    + SEQUENTIAL_ID + " FROM SYSTEM_RANGE(?, ?)", start, end);
+        }
+
+        offset = (int) (users * depth);
+        if (offset > 0) {
+            cursor = jdbcTemplate.queryForObject("SELECT created, id FROM users ORDER BY created, id LIMIT 1 OFFSET ?",
+                    (rs, row) -> {
+                        var id = ByteBuffer.wrap(rs.getBytes(2));
+                        return new UserCursor(rs.getObject(1, LocalDateTime.class), new UUID(id.getLong(), id.getLong()));
+                    }, offset - 1).encode();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public UserPage keyset() {
+        return listingService.listUsers(NO_FILTERS, cursor, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public List<UserResponse> offset() {
+        return readOnlyTransaction.execute(status -> entityManager
+                .createQuery("select u from User u order by u.created, u.id", User.class)
+                .setFirstResult(offset)
+                .setMaxResults(PAGE_SIZE)
+                .getResultStream()
+                .map(user -> userServiceDtoFactory.toExportResponse(user, user.getPhones()))
+                .collect(Collectors.toList()));
+    }
+}
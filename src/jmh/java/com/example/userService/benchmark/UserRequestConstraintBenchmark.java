@@ -0,0 +1,101 @@
+package com.example.userService.benchmark;
+
+import com.example.userService.dto.UserRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.validation.ValidatorFactory;
+import javax.validation.constraints.Email;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the scanning email and password validators of {@link UserRequest} with the regular expressions
+ * they replaced, each validated alone through Hibernate Validator.
+ * <p>
+ * {@code input} selects a valid value, a value failing the rules, or an oversized one (a 1000-character
+ * password, a 1000-character email). Run with {@code -prof gc} to compare the allocation as well.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class UserRequestConstraintBenchmark {
+
+    /** The constraints {@link UserRequest} had before the scanning validators. */
+    static class PatternUserRequest {
+        @Email(regexp = "^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$")
+        @NotNull
+        String email;
+
+        @Pattern(regexp = "^(?=.*[a-z])(?=.*[A-Z])(?=(?:.*\\d.*){2})[A-Za-z\\d]{8,12}$", message = "{password.format}")
+        @NotNull
+        String password;
+    }
+
+    @Param({"valid", "invalid", "oversized"})
+    private String input;
+
+    private ValidatorFactory validatorFactory;
+
+    private Validator validator;
+
+    private String email;
+
+    private String password;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        switch (input) {
+            case "valid":
+                email = "benchmark@example.com";
+                password = "a2asfGfdfdf4";
+                break;
+            case "invalid":
+                email = "benchmark.example.com";
+                password = "password";
+                break;
+            default:
+                email = "b".repeat(988) + "@example.com";
+                password = "aA1" + "b".repeat(997);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<PatternUserRequest>> patternEmail() {
+        return validator.validateValue(PatternUserRequest.class, "email", email);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserRequest>> scannedEmail() {
+        return validator.validateValue(UserRequest.class, "email", email);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<PatternUserRequest>> patternPassword() {
+        return validator.validateValue(PatternUserRequest.class, "password", password);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserRequest>> scannedPassword() {
+        return validator.validateValue(UserRequest.class, "password", password);
+    }
+}
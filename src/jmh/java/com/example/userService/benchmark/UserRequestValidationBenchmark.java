@@ -0,0 +1,74 @@
+package com.example.userService.benchmark;
+
+import com.example.userService.dto.PhoneDto;
+import com.example.userService.dto.UserRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.validation.ValidatorFactory;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and allocation of the Bean Validation of {@link UserRequest}, whose email and password
+ * are checked by scanning validators ({@link UserRequestConstraintBenchmark} compares them with the former
+ * regular expressions).
+ * <p>
+ * {@code valid} is the common case. {@code invalid} fails both rules and pays for building the violations
+ * and interpolating their messages. {@code longPassword} sends a 1000-character password, which is rejected
+ * on its length.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class UserRequestValidationBenchmark {
+
+    private ValidatorFactory validatorFactory;
+
+    private Validator validator;
+
+    private UserRequest valid;
+
+    private UserRequest invalid;
+
+    private UserRequest longPassword;
+
+    @Setup
+    public void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+        var phones = Set.of(new PhoneDto(null, 1234567L, 1, "57"));
+        valid = new UserRequest("benchmark@example.com", "a2asfGfdfdf4", "Benchmark User", phones);
+        invalid = new UserRequest("benchmark.example.com", "password", "Benchmark User", phones);
+        longPassword = new UserRequest("benchmark@example.com", "aA1" + "b".repeat(997), "Benchmark User", phones);
+    }
+
+    @TearDown
+    public void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserRequest>> valid() {
+        return validator.validate(valid);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserRequest>> invalid() {
+        return validator.validate(invalid);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UserRequest>> longPassword() {
+        return validator.validate(longPassword);
+    }
+}
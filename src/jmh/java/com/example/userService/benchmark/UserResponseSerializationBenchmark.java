@@ -0,0 +1,88 @@
+package com.example.userService.benchmark;
+
+import com.example.userService.dto.PhoneDto;
+import com.example.userService.dto.UserResponse;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput and allocation of serializing {@link UserResponse} with Jackson.
+ * <p>
+ * The {@link ObjectMapper} is configured as Spring Boot configures the one used by the controllers.
+ * {@code signUp} is the response of {@code /user/sign-up}, with metadata and tokens only;
+ * {@code login} is the full profile returned by {@code /user/login}, with {@code phones} phones.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class UserResponseSerializationBenchmark {
+
+    private static final String TOKEN = "eyJhbGciOiJIUzI1NiJ9.eyJqdGkiOiI3NGFkODM4OC1iOWYxLTRmZTgtYTIwYy0xOTgxOTU3NTM5MTgiLCJzdWIiOiJh"
+            + "QGIuY29tIiwiaWF0IjoxNzkyMjkzNjEyLCJleHAiOjE3OTIyOTcyMTJ9.bMuDoiDWYG94iJMsCRU2qYLhf7pnVzEnVRtRBUkwo7E";
+
+    @Param({"1", "10"})
+    private int phones;
+
+    private ObjectMapper objectMapper;
+
+    private UserResponse signUpResponse;
+
+    private UserResponse loginResponse;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+        var now = LocalDateTime.now();
+        signUpResponse = UserResponse.builder()
+                .id(UUID.randomUUID())
+                .created(now)
+                .lastLogin(now)
+                .token(TOKEN)
+                .refreshToken("M2Rh0kDprV5qVyYYY0-b2tyEyK2bNRyO4KDWRkX91ew")
+                .isActive(true)
+                .build();
+        var phoneList = new HashSet<PhoneDto>();
+        for (int i = 0; i < phones; i++) {
+            phoneList.add(new PhoneDto(null, 3_000_000L + i, 1, "57"));
+        }
+        loginResponse = UserResponse.builder()
+                .id(UUID.randomUUID())
+                .created(now)
+                .lastLogin(now)
+                .token(TOKEN)
+                .refreshToken("M2Rh0kDprV5qVyYYY0-b2tyEyK2bNRyO4KDWRkX91ew")
+                .isActive(true)
+                .name("Benchmark User")
+                .email("benchmark@example.com")
+                .password("{bcrypt}$2a$10$0L1IEHA3p3gLoLYdSxfVB.TzifbGjg8NjxDXlF.HVp8WPh0RtQJn6")
+                .phoneList(phoneList)
+                .build();
+    }
+
+    @Benchmark
+    public byte[] signUp() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(signUpResponse);
+    }
+
+    @Benchmark
+    public byte[] login() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(loginResponse);
+    }
+}
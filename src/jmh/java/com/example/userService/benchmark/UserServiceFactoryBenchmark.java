@@ -0,0 +1,78 @@
+package com.example.userService.benchmark;
+
+import com.example.userService.dto.PhoneDto;
+import com.example.userService.dto.UserRequest;
+import com.example.userService.entity.User;
+import com.example.userService.factory.UserServiceFactory;
+import com.example.userService.security.AdaptivePasswordEncoder;
+import com.example.userService.security.AdaptivePasswordEncoder.Algorithm;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of building a {@link User} from a sign-up request with {@link UserServiceFactory}.
+ * <p>
+ * {@code from} includes password encoding with the costs configured in {@code application.yml};
+ * {@code fromEncoded} takes an already encoded password, as sign-up does since hashing moved to its own pool,
+ * and isolates the mapping itself.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UserServiceFactoryBenchmark {
+
+    private static final int ARGON2_MEMORY_KB = 4096;
+
+    @Param({"BCRYPT", "PBKDF2", "ARGON2"})
+    private String algorithm;
+
+    private UserServiceFactory userServiceFactory;
+
+    private UserRequest request;
+
+    private String encodedPassword;
+
+    @Setup
+    public void setUp() {
+        var selected = Algorithm.from(algorithm);
+        var encoder = new AdaptivePasswordEncoder(selected, configuredCost(selected), ARGON2_MEMORY_KB);
+        userServiceFactory = new UserServiceFactory(encoder);
+        request = UserRequest.builder()
+                .email("benchmark@example.com")
+                .password("a2asfGfdfdf4")
+                .name("Benchmark User")
+                .phones(Set.of(new PhoneDto(null, 1234567L, 1, "57"), new PhoneDto(null, 7654321L, 1, "57")))
+                .build();
+        encodedPassword = encoder.encode(request.getPassword());
+    }
+
+    @Benchmark
+    public User from() {
+        return userServiceFactory.from(request);
+    }
+
+    @Benchmark
+    public User fromEncoded() {
+        return userServiceFactory.from(request, encodedPassword);
+    }
+
+    private static int configuredCost(Algorithm algorithm) {
+        switch (algorithm) {
+            case PBKDF2:
+                return 185_000;
+            case ARGON2:
+                return 3;
+            default:
+                return 10;
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.userService.load;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adds a fixed delay before every statement execution, to make the embedded database behave like one across
+ * the network.
+ * <p>
+ * With an in-memory H2 every query returns in microseconds, so requests never wait on I/O and the number of
+ * threads hardly matters. The delay is spent on the thread that runs the statement while it holds its pooled
+ * connection, as a round trip would be; on a virtual thread it parks instead of blocking a carrier.
+ * Selected with {@code loadTest.dbLatencyMs}.
+ */
+final class DatabaseLatency implements BeanPostProcessor {
+
+    private final long latencyMillis;
+
+    DatabaseLatency(long latencyMillis) {
+        this.latencyMillis = latencyMillis;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        return bean instanceof DataSource ? proxy(DataSource.class, bean) : bean;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T proxy(Class<T> type, Object target) {
+        InvocationHandler handler = (proxy, method, args) -> {
+            if (target instanceof Statement && method.getName().startsWith("execute")) {
+                TimeUnit.MILLISECONDS.sleep(latencyMillis);
+            }
+            var result = invoke(method, target, args);
+            if (result instanceof Connection && method.getName().equals("getConnection")) {
+                return proxy(Connection.class, result);
+            }
+            if (result instanceof Statement && target instanceof Connection) {
+                return proxy(statementType(result), result);
+            }
+            return result;
+        };
+        return (T) Proxy.newProxyInstance(getClass().getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Class<? extends Statement> statementType(Object statement) {
+        if (statement instanceof CallableStatement) {
+            return CallableStatement.class;
+        }
+        if (statement instanceof PreparedStatement) {
+            return PreparedStatement.class;
+        }
+        return Statement.class;
+    }
+
+    private static Object invoke(Method method, Object target, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+}
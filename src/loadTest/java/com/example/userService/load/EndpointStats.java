@@ -0,0 +1,61 @@
+package com.example.userService.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and outcomes recorded for one endpoint, in microseconds.
+ * <ul>
+ *     <li>{@code latency} is measured from the time the request was scheduled to start, so a request delayed
+ *     behind a stalled server is charged for the wait: the histogram is corrected for coordinated omission.</li>
+ *     <li>{@code serviceTime} is measured from the time the request was actually sent, as a closed-model tool
+ *     would; the gap between both shows how much queueing the server caused.</li>
+ * </ul>
+ */
+final class EndpointStats {
+
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    final String name;
+
+    final Histogram latency = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+
+    final Histogram serviceTime = new ConcurrentHistogram(SIGNIFICANT_DIGITS);
+
+    final LongAdder errors = new LongAdder();
+
+    EndpointStats(String name) {
+        this.name = name;
+    }
+
+    void recordSuccess(long scheduledNanos, long sentNanos, long completedNanos) {
+        latency.recordValue((completedNanos - scheduledNanos) / 1000);
+        serviceTime.recordValue((completedNanos - sentNanos) / 1000);
+    }
+
+    long successes() {
+        return latency.getTotalCount();
+    }
+
+    double errorRate() {
+        long total = successes() + errors.sum();
+        return total == 0 ? 0 : (double) errors.sum() / total;
+    }
+
+    /**
+     * @return the 99th percentile of the corrected latency, in milliseconds
+     */
+    double p99Millis() {
+        return latency.getValueAtPercentile(99) / 1000.0;
+    }
+
+    /**
+     * @param seconds length of the recorded window
+     * @return successful responses per second
+     */
+    double throughput(int seconds) {
+        return (double) successes() / seconds;
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.userService.load;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+
+/**
+ * Stored p99 latency and throughput of each endpoint, and the checks of a run against them.
+ * <p>
+ * Keys are {@code <endpoint>.p99-ms} and {@code <endpoint>.throughput}; {@code rate} and {@code sign-up-ratio}
+ * record the load the values were measured under. A run under a different load is only reported, since its
+ * numbers are not comparable. The values depend on the machine: record them again with
+ * {@code -PloadTest.updateBaseline=true} on the machine that runs the check.
+ */
+final class LoadTestBaseline {
+
+    private LoadTestBaseline() {
+    }
+
+    /**
+     * Compares a run against the baseline.
+     *
+     * @param baselineFile the stored baseline; when it does not exist only the error rate is checked
+     * @param config       the settings of the run
+     * @param results      the stats of each endpoint
+     * @return a description of every check that failed, empty if the run passed
+     */
+    static List<String> check(Path baselineFile, LoadTestConfig config, List<EndpointStats> results)
+            throws IOException {
+        var violations = new ArrayList<String>();
+        for (var stats : results) {
+            if (stats.errorRate() > config.maxErrorRate) {
+                violations.add(String.format(Locale.ROOT, "%s: error rate %.4f above %.4f",
+                        stats.name, stats.errorRate(), config.maxErrorRate));
+            }
+        }
+        if (!Files.exists(baselineFile)) {
+            System.out.println("No baseline at " + baselineFile + ", skipping the p99 and throughput checks");
+            return violations;
+        }
+        var baseline = new Properties();
+        try (Reader reader = Files.newBufferedReader(baselineFile)) {
+            baseline.load(reader);
+        }
+        double baselineRate = Double.parseDouble(baseline.getProperty("rate", "0"));
+        double baselineRatio = Double.parseDouble(baseline.getProperty("sign-up-ratio", "-1"));
+        if (baselineRate != config.rate || baselineRatio != config.signUpRatio) {
+            System.out.printf(Locale.ROOT, "Baseline was recorded at %.1f req/s with sign-up ratio %.2f, "
+                    + "skipping the p99 and throughput checks%n", baselineRate, baselineRatio);
+            return violations;
+        }
+        for (var stats : results) {
+            var p99 = baseline.getProperty(stats.name + ".p99-ms");
+            if (p99 != null && stats.p99Millis() > Double.parseDouble(p99) * (1 + config.tolerance)) {
+                violations.add(String.format(Locale.ROOT, "%s: p99 %.2f ms above baseline %s ms + %.0f%%",
+                        stats.name, stats.p99Millis(), p99, config.tolerance * 100));
+            }
+            var throughput = baseline.getProperty(stats.name + ".throughput");
+            double measured = stats.throughput(config.durationSeconds);
+            if (throughput != null && measured < Double.parseDouble(throughput) * (1 - config.tolerance)) {
+                violations.add(String.format(Locale.ROOT, "%s: throughput %.1f req/s below baseline %s req/s - %.0f%%",
+                        stats.name, measured, throughput, config.tolerance * 100));
+            }
+        }
+        return violations;
+    }
+
+    /**
+     * Stores the results of a run as the new baseline.
+     *
+     * @param baselineFile the file to overwrite
+     * @param config       the settings of the run
+     * @param results      the stats of each endpoint
+     */
+    static void write(Path baselineFile, LoadTestConfig config, List<EndpointStats> results) throws IOException {
+        var baseline = new Properties();
+        baseline.setProperty("rate", Double.toString(config.rate));
+        baseline.setProperty("sign-up-ratio", Double.toString(config.signUpRatio));
+        for (var stats : results) {
+            baseline.setProperty(stats.name + ".p99-ms", String.format(Locale.ROOT, "%.2f", stats.p99Millis()));
+            baseline.setProperty(stats.name + ".throughput",
+                    String.format(Locale.ROOT, "%.1f", stats.throughput(config.durationSeconds)));
+        }
+        try (Writer writer = Files.newBufferedWriter(baselineFile)) {
+            baseline.store(writer, "Recorded with ./gradlew loadTest -PloadTest.updateBaseline=true");
+        }
+        System.out.println("Baseline written to " + baselineFile);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.userService.load;
+
+import java.nio.file.Path;
+
+/**
+ * Settings of a load test run, read from {@code loadTest.*} system properties.
+ * <p>
+ * The Gradle {@code loadTest} task forwards every {@code -PloadTest.*} project property, so a run is tuned with e.g.
+ * {@code ./gradlew loadTest -PloadTest.rate=300 -PloadTest.durationSeconds=60}.
+ */
+public final class LoadTestConfig {
+
+    /** Users inserted before the run; logins are spread over them. */
+    final int users;
+
+    /** Requests started per second, whatever the response times are. */
+    final double rate;
+
+    /** Seconds of load that are not recorded, to let the JIT and the pools warm up. */
+    final int warmupSeconds;
+
+    /** Seconds of recorded load after the warm-up. */
+    final int durationSeconds;
+
+    /** Fraction of the requests that are sign-ups; the rest are logins. */
+    final double signUpRatio;
+
+    /** Requests allowed to wait for a response at once; requests beyond it are counted as errors. */
+    final int maxInFlight;
+
+    /** Seconds after which a request is abandoned and counted as an error. */
+    final int requestTimeoutSeconds;
+
+    /** Allowed relative regression of p99 and throughput against the baseline, e.g. {@code 0.2} for 20%. */
+    final double tolerance;
+
+    /** Delay added to every database statement, to simulate a database across the network; {@code 0} for none. */
+    final long dbLatencyMs;
+
+    /** Highest fraction of failed requests accepted per endpoint. */
+    final double maxErrorRate;
+
+    /** Writes the results of this run as the new baseline instead of comparing against it. */
+    final boolean updateBaseline;
+
+    /** Postman collection the requests are built from. */
+    final Path collection;
+
+    /** Properties file with the stored p99 and throughput of each endpoint. */
+    final Path baseline;
+
+    /** Directory for the latency distributions and the summary of the run. */
+    final Path reportDir;
+
+    private LoadTestConfig() {
+        users = Integer.getInteger("loadTest.users", 1000);
+        rate = Double.parseDouble(System.getProperty("loadTest.rate", "50"));
+        warmupSeconds = Integer.getInteger("loadTest.warmupSeconds", 10);
+        durationSeconds = Integer.getInteger("loadTest.durationSeconds", 30);
+        signUpRatio = Double.parseDouble(System.getProperty("loadTest.signUpRatio", "0.1"));
+        maxInFlight = Integer.getInteger("loadTest.maxInFlight", 1000);
+        requestTimeoutSeconds = Integer.getInteger("loadTest.requestTimeoutSeconds", 30);
+        tolerance = Double.parseDouble(System.getProperty("loadTest.tolerance", "0.2"));
+        dbLatencyMs = Long.getLong("loadTest.dbLatencyMs", 0);
+        maxErrorRate = Double.parseDouble(System.getProperty("loadTest.maxErrorRate", "0.01"));
+        updateBaseline = Boolean.parseBoolean(System.getProperty("loadTest.updateBaseline", "false"));
+        collection = Path.of(System.getProperty("loadTest.collection", "postman/Training.postman_collection.json"));
+        baseline = Path.of(System.getProperty("loadTest.baseline", "src/loadTest/baseline.properties"));
+        reportDir = Path.of(System.getProperty("loadTest.reportDir", "build/reports/loadTest"));
+        if (rate <= 0 || durationSeconds <= 0 || signUpRatio < 0 || signUpRatio > 1) {
+            throw new IllegalArgumentException("loadTest.rate and loadTest.durationSeconds must be positive "
+                    + "and loadTest.signUpRatio between 0 and 1");
+        }
+    }
+
+    /**
+     * @return the settings given as system properties, with defaults for the missing ones
+     */
+    public static LoadTestConfig fromSystemProperties() {
+        return new LoadTestConfig();
+    }
+}
@@ -0,0 +1,163 @@
+package com.example.userService.load;
+
+import com.example.userService.UserServiceApplication;
+import com.example.userService.dto.UserRequest;
+import com.example.userService.entity.User;
+import com.example.userService.factory.UserServiceFactory;
+import com.example.userService.repository.UserRepository;
+import com.example.userService.security.JwtUtil;
+import com.example.userService.service.BlockingCallExecutor;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * End-to-end load test, run by the Gradle {@code loadTest} task.
+ * <ol>
+ *     <li>Starts the application on an ephemeral port against a fresh in-memory H2 database.</li>
+ *     <li>Seeds {@code loadTest.users} users directly through the repository, with a password hashed once,
+ *     and signs a token for each of them.</li>
+ *     <li>Sends sign-ups and logins built from the Postman collection at a constant rate with
+ *     {@link OpenModelLoadGenerator}.</li>
+ *     <li>Prints the latency percentiles, writes the HdrHistogram distributions to {@code loadTest.reportDir}
+ *     and checks the run against {@link LoadTestBaseline}, exiting with status 1 on a regression so the build
+ *     fails.</li>
+ * </ol>
+ * {@code loadTest.dbLatencyMs} delays every statement with {@link DatabaseLatency}, and the peak platform threads and
+ * heap of the recorded window are reported, to compare execution modes such as the {@code virtual-threads} profile.
+ * <p>
+ * Program arguments are passed to the application, e.g.
+ * {@code ./gradlew loadTest -PloadTest.appArgs=--security.password.algorithm=argon2}.
+ */
+public final class LoadTestRunner {
+
+    private static final int SEED_CHUNK_SIZE = 500;
+
+    private LoadTestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        var config = LoadTestConfig.fromSystemProperties();
+        int status;
+        try (var context = start(args, config)) {
+            status = run(context, config);
+        }
+        System.exit(status);
+    }
+
+    /**
+     * Starts the application; the overrides are passed as arguments so they win over {@code application.yml},
+     * and the program arguments come last so they win over the overrides. The rate limits are off, since every
+     * request comes from the same address.
+     */
+    private static ConfigurableApplicationContext start(String[] args, LoadTestConfig config) {
+        var arguments = new ArrayList<>(List.of(
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:loadtest;DB_CLOSE_ON_EXIT=FALSE",
+                "--spring.h2.console.enabled=false",
+                "--spring.main.banner-mode=off",
+                "--jwt.revocation.file=",
+                "--security.rate-limit.enabled=false",
+                "--logging.level.root=WARN",
+                "--logging.level.org.hibernate.SQL_SLOW=WARN"));
+        arguments.addAll(List.of(args));
+        var builder = new SpringApplicationBuilder(UserServiceApplication.class);
+        if (config.dbLatencyMs > 0) {
+            builder.initializers(context -> context.getBeanFactory()
+                    .addBeanPostProcessor(new DatabaseLatency(config.dbLatencyMs)));
+        }
+        return builder.run(arguments.toArray(String[]::new));
+    }
+
+    private static int run(ConfigurableApplicationContext context, LoadTestConfig config) throws Exception {
+        var objectMapper = context.getBean(ObjectMapper.class);
+        var scenario = PostmanScenario.load(config.collection, objectMapper);
+        var port = ((WebServerApplicationContext) context).getWebServer().getPort();
+
+        var tokens = seedUsers(context, scenario, objectMapper, config.users);
+        System.out.printf(Locale.ROOT, "Seeded %d users; running %.1f req/s (%.0f%% sign-ups) for %ds after a %ds "
+                        + "warm-up%n", config.users, config.rate, config.signUpRatio * 100, config.durationSeconds,
+                config.warmupSeconds);
+        System.out.printf(Locale.ROOT, "Java %s, %s threads, %d ms per statement%n", Runtime.version(),
+                context.getBean(BlockingCallExecutor.class).isVirtualThreads() ? "virtual" : "platform",
+                config.dbLatencyMs);
+
+        var generator = new OpenModelLoadGenerator(URI.create("http://localhost:" + port), scenario, tokens,
+                objectMapper, config);
+        generator.run();
+
+        var results = List.of(generator.signUpStats, generator.loginStats);
+        report(results, config);
+        System.out.printf("Peak platform threads %d, peak heap used %d MB%n", generator.sampler.peakThreads(),
+                generator.sampler.peakHeapMegabytes());
+        if (config.updateBaseline) {
+            LoadTestBaseline.write(config.baseline, config, results);
+            return 0;
+        }
+        var violations = LoadTestBaseline.check(config.baseline, config, results);
+        violations.forEach(violation -> System.out.println("REGRESSION " + violation));
+        return violations.isEmpty() ? 0 : 1;
+    }
+
+    /**
+     * Inserts users built from the sign-up body of the collection, bypassing the API so seeding does not pay for
+     * password hashing per user.
+     *
+     * @return a valid token for each seeded user
+     */
+    private static List<String> seedUsers(ConfigurableApplicationContext context, PostmanScenario scenario,
+                                          ObjectMapper objectMapper, int count) throws IOException {
+        var userServiceFactory = context.getBean(UserServiceFactory.class);
+        var userRepository = context.getBean(UserRepository.class);
+        var jwtUtil = context.getBean(JwtUtil.class);
+        var request = objectMapper.treeToValue(scenario.signUp.body, UserRequest.class);
+        var encodedPassword = context.getBean(PasswordEncoder.class).encode(request.getPassword());
+
+        var tokens = new ArrayList<String>(count);
+        var chunk = new ArrayList<User>(SEED_CHUNK_SIZE);
+        for (int i = 0; i < count; i++) {
+            request.setEmail("seed-" + i + "@load.test");
+            chunk.add(userServiceFactory.from(request, encodedPassword));
+            tokens.add(jwtUtil.generateToken(request.getEmail()));
+            if (chunk.size() == SEED_CHUNK_SIZE || i == count - 1) {
+                userRepository.insertAll(chunk);
+                chunk.clear();
+            }
+        }
+        return tokens;
+    }
+
+    private static void report(List<EndpointStats> results, LoadTestConfig config) throws IOException {
+        Files.createDirectories(config.reportDir);
+        System.out.printf("%-8s %8s %7s %9s %9s %9s %9s %9s %9s%n",
+                "endpoint", "ok", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (var stats : results) {
+            var latency = stats.latency;
+            System.out.printf(Locale.ROOT, "%-8s %8d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    stats.name, stats.successes(), stats.errors.sum(), stats.throughput(config.durationSeconds),
+                    latency.getValueAtPercentile(50) / 1000.0, latency.getValueAtPercentile(90) / 1000.0,
+                    latency.getValueAtPercentile(99) / 1000.0, latency.getValueAtPercentile(99.9) / 1000.0,
+                    latency.getMaxValue() / 1000.0);
+            System.out.printf(Locale.ROOT, "%-8s p99 without queueing (service time): %.2f ms%n",
+                    "", stats.serviceTime.getValueAtPercentile(99) / 1000.0);
+            try (var out = new PrintStream(Files.newOutputStream(config.reportDir.resolve(stats.name + ".hgrm")))) {
+                latency.outputPercentileDistribution(out, 1000.0);
+            }
+            try (var out = new PrintStream(
+                    Files.newOutputStream(config.reportDir.resolve(stats.name + "-service-time.hgrm")))) {
+                stats.serviceTime.outputPercentileDistribution(out, 1000.0);
+            }
+        }
+        System.out.println("Latency distributions (ms) written to " + config.reportDir);
+    }
+}
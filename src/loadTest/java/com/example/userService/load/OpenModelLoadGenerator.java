@@ -0,0 +1,142 @@
+package com.example.userService.load;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Drives sign-ups and logins at a constant arrival rate (open model).
+ * <p>
+ * Request {@code i} is scheduled at {@code start + i / rate} and sent asynchronously, so a slow response never
+ * delays the requests after it, as it would with a fixed number of looping clients. Latency is measured from the
+ * scheduled time; if the generator itself falls behind, the delay is charged to the server as well.
+ * <p>
+ * Requests started during the warm-up are sent but not recorded. Requests that would exceed
+ * {@code loadTest.maxInFlight} are not sent and count as errors, so a stalled server cannot exhaust the client.
+ * Responses are handled by two threads whatever the load, so the thread count sampled by {@link ResourceSampler}
+ * during the recorded window reflects the application.
+ */
+final class OpenModelLoadGenerator {
+
+    private final ExecutorService clientExecutor = Executors.newFixedThreadPool(2);
+    private final HttpClient client;
+    private final URI baseUri;
+    private final PostmanScenario scenario;
+    private final List<String> tokens;
+    private final ObjectMapper objectMapper;
+    private final LoadTestConfig config;
+
+    final EndpointStats signUpStats = new EndpointStats("signup");
+    final EndpointStats loginStats = new EndpointStats("login");
+    final ResourceSampler sampler = new ResourceSampler();
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    OpenModelLoadGenerator(URI baseUri, PostmanScenario scenario, List<String> tokens, ObjectMapper objectMapper,
+                           LoadTestConfig config) {
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(clientExecutor)
+                .connectTimeout(Duration.ofSeconds(config.requestTimeoutSeconds))
+                .build();
+        this.baseUri = baseUri;
+        this.scenario = scenario;
+        this.tokens = tokens;
+        this.objectMapper = objectMapper;
+        this.config = config;
+    }
+
+    /**
+     * Runs the warm-up and the recorded window, then waits for the outstanding responses.
+     */
+    void run() throws InterruptedException, JsonProcessingException {
+        var random = new SplittableRandom(42);
+        long intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / config.rate);
+        long start = System.nanoTime();
+        long recordFrom = start + TimeUnit.SECONDS.toNanos(config.warmupSeconds);
+        long end = recordFrom + TimeUnit.SECONDS.toNanos(config.durationSeconds);
+        var runId = Long.toString(System.currentTimeMillis(), 36);
+
+        for (long i = 0; ; i++) {
+            long scheduled = start + i * intervalNanos;
+            if (scheduled >= end) {
+                break;
+            }
+            long wait;
+            while ((wait = scheduled - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            boolean recorded = scheduled >= recordFrom;
+            if (recorded && scheduled - intervalNanos < recordFrom) {
+                sampler.start();
+            }
+            if (random.nextDouble() < config.signUpRatio) {
+                send(signUpRequest(runId, i), signUpStats, scheduled, recorded);
+            } else {
+                send(loginRequest(tokens.get(random.nextInt(tokens.size()))), loginStats, scheduled, recorded);
+            }
+        }
+        long drainDeadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(config.requestTimeoutSeconds);
+        while (inFlight.get() > 0 && System.nanoTime() < drainDeadline) {
+            Thread.sleep(10);
+        }
+        sampler.stop();
+        clientExecutor.shutdown();
+    }
+
+    private void send(HttpRequest request, EndpointStats stats, long scheduled, boolean recorded) {
+        if (inFlight.incrementAndGet() > config.maxInFlight) {
+            inFlight.decrementAndGet();
+            if (recorded) {
+                stats.errors.increment();
+            }
+            return;
+        }
+        long sent = System.nanoTime();
+        client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                .whenComplete((response, error) -> {
+                    long completed = System.nanoTime();
+                    inFlight.decrementAndGet();
+                    if (!recorded) {
+                        return;
+                    }
+                    if (error == null && response.statusCode() / 100 == 2) {
+                        stats.recordSuccess(scheduled, sent, completed);
+                    } else {
+                        stats.errors.increment();
+                    }
+                });
+    }
+
+    private HttpRequest signUpRequest(String runId, long sequence) throws JsonProcessingException {
+        var body = scenario.signUp.body.deepCopy();
+        body.put("email", "load-" + runId + "-" + sequence + "@load.test");
+        return HttpRequest.newBuilder(baseUri.resolve(scenario.signUp.path))
+                .timeout(Duration.ofSeconds(config.requestTimeoutSeconds))
+                .header("Content-Type", "application/json")
+                .method(scenario.signUp.method, HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)))
+                .build();
+    }
+
+    private HttpRequest loginRequest(String token) {
+        var builder = HttpRequest.newBuilder(baseUri.resolve(scenario.login.path))
+                .timeout(Duration.ofSeconds(config.requestTimeoutSeconds))
+                .method(scenario.login.method, HttpRequest.BodyPublishers.noBody());
+        if (scenario.login.bearerAuth) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder.build();
+    }
+}
@@ -0,0 +1,93 @@
+package com.example.userService.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/**
+ * Requests of the load test, taken from the Postman collection kept in {@code postman/}.
+ * <p>
+ * Only the method, path, body and auth type of each request are used; the host and port of the collection are
+ * replaced by those of the application under test, the sign-up email by a unique one per request and the bearer
+ * token by one of a seeded user. Folders are searched recursively.
+ */
+public final class PostmanScenario {
+
+    static final String SIGN_UP_PATH = "/user/sign-up";
+    static final String LOGIN_PATH = "/user/login";
+
+    /**
+     * A request of the collection.
+     */
+    static final class Request {
+        final String name;
+        final String method;
+        final String path;
+        /** Parsed JSON body, or {@code null} when the request has none. */
+        final ObjectNode body;
+        final boolean bearerAuth;
+
+        Request(String name, String method, String path, ObjectNode body, boolean bearerAuth) {
+            this.name = name;
+            this.method = method;
+            this.path = path;
+            this.body = body;
+            this.bearerAuth = bearerAuth;
+        }
+    }
+
+    final Request signUp;
+    final Request login;
+
+    private PostmanScenario(Request signUp, Request login) {
+        this.signUp = signUp;
+        this.login = login;
+    }
+
+    /**
+     * Reads the sign-up and login requests of a collection.
+     *
+     * @param collection   the exported collection (schema v2.1)
+     * @param objectMapper mapper used to parse the collection and the raw bodies
+     * @return the scenario
+     * @throws IllegalStateException if the collection has no sign-up or no login request
+     */
+    public static PostmanScenario load(Path collection, ObjectMapper objectMapper) throws IOException {
+        var requests = new HashMap<String, Request>();
+        collect(objectMapper.readTree(Files.readAllBytes(collection)), objectMapper, requests);
+        var signUp = requests.get(SIGN_UP_PATH);
+        var login = requests.get(LOGIN_PATH);
+        if (signUp == null || signUp.body == null || login == null) {
+            throw new IllegalStateException("Collection " + collection + " needs a " + SIGN_UP_PATH
+                    + " request with a JSON body and a " + LOGIN_PATH + " request, found " + requests.keySet());
+        }
+        return new PostmanScenario(signUp, login);
+    }
+
+    private static void collect(JsonNode node, ObjectMapper objectMapper, Map<String, Request> requests)
+            throws IOException {
+        for (var item : node.path("item")) {
+            if (item.has("item")) {
+                collect(item, objectMapper, requests);
+                continue;
+            }
+            var request = item.path("request");
+            var path = "/" + StreamSupport.stream(request.path("url").path("path").spliterator(), false)
+                    .map(JsonNode::asText)
+                    .collect(Collectors.joining("/"));
+            var raw = request.path("body").path("raw").asText("");
+            var body = raw.isBlank() ? null : (ObjectNode) objectMapper.readTree(raw);
+            var bearerAuth = "bearer".equals(request.path("auth").path("type").asText());
+            requests.putIfAbsent(path, new Request(item.path("name").asText(), request.path("method").asText("GET"),
+                    path, body, bearerAuth));
+        }
+    }
+}
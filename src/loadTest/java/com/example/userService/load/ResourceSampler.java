@@ -0,0 +1,59 @@
+package com.example.userService.load;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Samples the platform threads and the heap of the JVM every {@value #INTERVAL_MS} ms and keeps the peaks.
+ * <p>
+ * The application runs in the same JVM as the load generator, whose own threads are a small fixed number,
+ * so the peaks compare execution modes run with the same settings. Virtual threads are not counted as
+ * threads by the JVM; only their carriers are.
+ */
+final class ResourceSampler implements Runnable {
+
+    private static final long INTERVAL_MS = 100;
+
+    private volatile boolean running = true;
+
+    private volatile int peakThreads;
+
+    private volatile long peakHeapBytes;
+
+    /**
+     * Starts sampling on a daemon thread.
+     */
+    void start() {
+        var thread = new Thread(this, "load-test-sampler");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    void stop() {
+        running = false;
+    }
+
+    @Override
+    public void run() {
+        var threads = ManagementFactory.getThreadMXBean();
+        var memory = ManagementFactory.getMemoryMXBean();
+        while (running) {
+            peakThreads = Math.max(peakThreads, threads.getThreadCount());
+            peakHeapBytes = Math.max(peakHeapBytes, memory.getHeapMemoryUsage().getUsed());
+            try {
+                TimeUnit.MILLISECONDS.sleep(INTERVAL_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    int peakThreads() {
+        return peakThreads;
+    }
+
+    long peakHeapMegabytes() {
+        return peakHeapBytes / (1024 * 1024);
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.userService.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Wiring of the read replica, enabled by {@code datasource.replica.enabled}.
+ * <p>
+ * Two Hikari pools are built: the primary from {@code spring.datasource}, as Spring Boot would, and the replica
+ * from {@code datasource.replica}. The data source everything else uses routes between them with a
+ * {@link ReplicaRoutingDataSource}: read-only transactions, such as the lookups by email, the listing and the
+ * export, read from the replica; writes, and reads outside a transaction, stay on the primary. The replica
+ * address may front several read nodes.
+ * <p>
+ * A replica lags behind its primary, so reads of an email written in the last {@code datasource.replica.stickiness-ms}
+ * go to the primary; see {@link com.example.userService.service.ReplicaStickiness}.
+ * <p>
+ * Hibernate is switched to {@link PhysicalConnectionHandlingMode#DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION},
+ * so each transaction takes its own connection, routed by its read-only flag, instead of keeping the first one
+ * for the whole request under open-session-in-view.
+ */
+@Configuration
+@ConditionalOnProperty("datasource.replica.enabled")
+public class ReplicaDataSourceConfig {
+
+    @Value("${datasource.replica.url}")
+    private String replicaUrl;
+
+    @Value("${datasource.replica.username:${spring.datasource.username:}}")
+    private String replicaUsername;
+
+    @Value("${datasource.replica.password:${spring.datasource.password:}}")
+    private String replicaPassword;
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @ConfigurationProperties("datasource.replica.hikari")
+    public HikariDataSource replicaDataSource() {
+        return DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(replicaUrl)
+                .username(replicaUsername)
+                .password(replicaPassword)
+                .build();
+    }
+
+    /**
+     * The lazy proxy defers taking a connection until the first statement, once the transaction is known to be
+     * read-only or not.
+     */
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primary,
+                                 @Qualifier("replicaDataSource") DataSource replica) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primary, replica));
+    }
+
+    /**
+     * Releases the connection after each transaction, so that the next one is routed again.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer replicaConnectionHandling() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+}
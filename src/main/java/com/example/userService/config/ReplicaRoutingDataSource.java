@@ -0,0 +1,64 @@
+package com.example.userService.config;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Sends the connections of read-only transactions to the replica and every other connection to the primary.
+ * <p>
+ * The route is decided when a connection is taken, from the read-only flag of the current transaction, so this
+ * data source must sit behind a {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: the
+ * transaction manager asks for its connection before it publishes the flag. Reads that must see a write the
+ * replica may not have applied yet are wrapped in {@link #onPrimary(Supplier)}.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+    /**
+     * Targets of the routing.
+     */
+    public enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    private static final ThreadLocal<Boolean> PRIMARY_ONLY = new ThreadLocal<>();
+
+    /**
+     * @param primary the data source taking the writes
+     * @param replica the data source serving read-only transactions
+     */
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica) {
+        setTargetDataSources(Map.of(Route.PRIMARY, primary, Route.REPLICA, replica));
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Runs a piece of work with every connection it takes on this thread, read-only or not, going to the primary.
+     *
+     * @param work the work to run
+     * @param <T>  the type of its result
+     * @return the result of {@code work}
+     */
+    public static <T> T onPrimary(Supplier<T> work) {
+        if (Boolean.TRUE.equals(PRIMARY_ONLY.get())) {
+            return work.get();
+        }
+        PRIMARY_ONLY.set(Boolean.TRUE);
+        try {
+            return work.get();
+        } finally {
+            PRIMARY_ONLY.remove();
+        }
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        return TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                && !Boolean.TRUE.equals(PRIMARY_ONLY.get()) ? Route.REPLICA : Route.PRIMARY;
+    }
+}
@@ -1,17 +1,24 @@
 package com.example.userService.config;
 
+import com.example.userService.security.AdaptivePasswordEncoder;
+import com.example.userService.security.AdaptivePasswordEncoder.Algorithm;
 import com.example.userService.security.JwtFilter;
+import com.example.userService.security.JwtUtil;
+import com.example.userService.security.PasswordCostCalibrator;
+import com.example.userService.security.RateLimitFilter;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import java.time.Duration;
+
 /**
  * Spring Security configuration class.
  * <p>
@@ -25,14 +32,52 @@ public class SecurityConfig {
     /** Custom filter that handles JWT token validation. */
     private final JwtFilter jwtFilter;
 
+    /** Filter that throttles login and sign-up attempts. */
+    private final RateLimitFilter rateLimitFilter;
+
+    /** Password hashing algorithm: {@code bcrypt}, {@code pbkdf2} or {@code argon2}. */
+    @Value("${security.password.algorithm:bcrypt}")
+    private String passwordAlgorithm;
+
+    /**
+     * Whether the hashing cost is measured at startup instead of taken from the configuration. Only for a single
+     * instance: instances measuring different costs keep reporting each other's hashes as outdated.
+     */
+    @Value("${security.password.calibrate:false}")
+    private boolean calibratePassword;
+
+    /** Target time per hash used by the calibration. */
+    @Value("${security.password.target-latency-ms:50}")
+    private long passwordTargetLatencyMs;
+
+    @Value("${security.password.bcrypt.strength:10}")
+    private int bcryptStrength;
+
+    @Value("${security.password.pbkdf2.iterations:185000}")
+    private int pbkdf2Iterations;
+
+    @Value("${security.password.argon2.iterations:3}")
+    private int argon2Iterations;
+
+    @Value("${security.password.argon2.memory-kb:4096}")
+    private int argon2MemoryKb;
+
 
     /**
      * Configures the HTTP security for the application.
      * <ul>
      *     <li>Disables CSRF for stateless APIs.</li>
-     *     <li>Allows unauthenticated access to the {@code /user/sign-up} endpoint.</li>
+     *     <li>Never creates HTTP sessions: every request is authenticated by its own token.</li>
+     *     <li>Allows unauthenticated access to the {@code /user/sign-up}, {@code /user/sign-in} and
+     *     {@code /user/token/refresh} endpoints and to the public signing keys.</li>
+     *     <li>Allows unauthenticated access to the health and Prometheus actuator endpoints.</li>
+     *     <li>Restricts the user listing, the bulk sign-up and the export to tokens with the
+     *     {@value JwtUtil#ADMIN_AUTHORITY} authority. They are matched the way Spring MVC matches them, so a trailing
+     *     slash does not get around the rule.</li>
      *     <li>Requires authentication for all other endpoints.</li>
      *     <li>Adds a custom JWT filter before the standard username-password filter.</li>
+     *     <li>Adds the rate limit filter before the JWT filter, so throttled attempts cost no token parsing, and its
+     *     login per-account limit after it, so that limit is only charged to verified subjects.</li>
      * </ul>
      *
      * @param http the {@link HttpSecurity} object to configure
@@ -43,21 +88,48 @@ public class SecurityConfig {
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         return http
                 .csrf().disable()
+                .sessionManagement().sessionCreationPolicy(SessionCreationPolicy.STATELESS)
+                .and()
                 .authorizeRequests()
-                .antMatchers("/user/sign-up").permitAll()
+                .antMatchers("/user/sign-up", "/user/sign-in", "/user/token/refresh", "/.well-known/jwks.json").permitAll()
+                .antMatchers("/actuator/health/**", "/actuator/prometheus").permitAll()
+                .mvcMatchers(HttpMethod.GET, "/user").hasAuthority(JwtUtil.ADMIN_AUTHORITY)
+                .mvcMatchers("/user/bulk", "/user/export").hasAuthority(JwtUtil.ADMIN_AUTHORITY)
                 .anyRequest().authenticated()
                 .and()
                 .addFilterBefore(jwtFilter, UsernamePasswordAuthenticationFilter.class)
+                .addFilterBefore(rateLimitFilter, JwtFilter.class)
+                .addFilterAfter(rateLimitFilter.loginAccountFilter(), JwtFilter.class)
                 .build();
     }
 
+    /**
+     * Creates the password encoder configured under {@code security.password}.
+     * <p>
+     * The cost is the one pinned in the configuration, as measured by {@link PasswordCostCalibrator} on the target
+     * hardware. When calibration is enabled, it is measured at startup instead so that a hash takes about
+     * {@code security.password.target-latency-ms}. Stored hashes produced with another algorithm or cost keep
+     * matching and are re-encoded with the current parameters when their user signs in with a password.
+     *
+     * @return the application's {@link PasswordEncoder}
+     */
     @Bean
     public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+        var algorithm = Algorithm.from(passwordAlgorithm);
+        int cost = calibratePassword
+                ? PasswordCostCalibrator.calibrate(algorithm, Duration.ofMillis(passwordTargetLatencyMs), argon2MemoryKb)
+                : configuredCost(algorithm);
+        return new AdaptivePasswordEncoder(algorithm, cost, argon2MemoryKb);
     }
 
-    @Bean
-    public AuthenticationManager authenticationManager(AuthenticationConfiguration config) throws Exception {
-        return config.getAuthenticationManager();
+    private int configuredCost(Algorithm algorithm) {
+        switch (algorithm) {
+            case PBKDF2:
+                return pbkdf2Iterations;
+            case ARGON2:
+                return argon2Iterations;
+            default:
+                return bcryptStrength;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,68 @@
+package com.example.userService.config;
+
+import com.example.userService.dto.RefreshTokenRequest;
+import com.example.userService.dto.UserRequest;
+import com.example.userService.service.UserMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.validation.Errors;
+import org.springframework.validation.SmartValidator;
+import org.springframework.validation.Validator;
+import org.springframework.validation.beanvalidation.SpringValidatorAdapter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.Map;
+
+/**
+ * Times the Bean Validation of request bodies as the {@link UserMetrics#VALIDATION} stage of their operation.
+ * <p>
+ * Spring MVC validates {@code @Valid} arguments before the controller runs, so the stage is measured by
+ * wrapping the validator it uses. Bodies of other types are validated without being timed.
+ */
+@Configuration
+@RequiredArgsConstructor
+public class ValidationMetricsConfig implements WebMvcConfigurer {
+
+    private static final Map<Class<?>, String> OPERATIONS = Map.of(
+            UserRequest.class, UserMetrics.SIGN_UP,
+            RefreshTokenRequest.class, UserMetrics.REFRESH);
+
+    /** The application's Bean Validation validator. */
+    private final javax.validation.Validator validator;
+
+    private final UserMetrics userMetrics;
+
+    @Override
+    public Validator getValidator() {
+        return new TimedValidator(new SpringValidatorAdapter(validator), userMetrics);
+    }
+
+    @RequiredArgsConstructor
+    private static final class TimedValidator implements SmartValidator {
+
+        private final SmartValidator delegate;
+
+        private final UserMetrics userMetrics;
+
+        @Override
+        public boolean supports(Class<?> clazz) {
+            return delegate.supports(clazz);
+        }
+
+        @Override
+        public void validate(Object target, Errors errors) {
+            validate(target, errors, new Object[0]);
+        }
+
+        @Override
+        public void validate(Object target, Errors errors, Object... validationHints) {
+            var operation = OPERATIONS.get(target.getClass());
+            if (operation == null) {
+                delegate.validate(target, errors, validationHints);
+                return;
+            }
+            userMetrics.stage(operation, UserMetrics.VALIDATION)
+                    .record(() -> delegate.validate(target, errors, validationHints));
+        }
+    }
+}
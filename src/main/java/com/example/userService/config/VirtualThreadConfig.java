@@ -0,0 +1,36 @@
+package com.example.userService.config;
+
+import com.example.userService.service.BlockingCallExecutor;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+
+/**
+ * Wiring of the virtual-thread mode, enabled by {@code execution.virtual-threads.enabled}.
+ * <p>
+ * Sign-up and login return futures, so Tomcat threads only parse the request and write the response while the
+ * work that waits on the database runs on virtual threads of the {@link BlockingCallExecutor}. Tomcat's own
+ * threads are deliberately not replaced: Tomcat 9.0 processes each request inside a {@code synchronized} block
+ * on the socket, which would pin the carrier thread for the whole request ({@code -Djdk.tracePinnedThreads}
+ * reports {@code SocketProcessorBase.run}). The profile shrinks the Tomcat pool instead.
+ * <p>
+ * Streaming responses of the bulk import and the export, run by Spring MVC on the {@code applicationTaskExecutor},
+ * get a virtual thread each as well. Password hashing keeps its platform pool: it is CPU bound, and virtual threads
+ * would only move its queue elsewhere.
+ */
+@Configuration
+@ConditionalOnProperty("execution.virtual-threads.enabled")
+@RequiredArgsConstructor
+public class VirtualThreadConfig {
+
+    private final BlockingCallExecutor blockingCallExecutor;
+
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME, "taskExecutor"})
+    public AsyncTaskExecutor applicationTaskExecutor() {
+        return new TaskExecutorAdapter(blockingCallExecutor.executor());
+    }
+}
@@ -1,20 +1,33 @@
 package com.example.userService.controller;
 
+import com.example.userService.dto.LoginRequest;
+import com.example.userService.dto.RefreshTokenRequest;
+import com.example.userService.dto.TokenResponse;
+import com.example.userService.dto.UserPage;
 import com.example.userService.dto.UserRequest;
 import com.example.userService.dto.UserResponse;
+import com.example.userService.repository.UserSearchCriteria;
 import com.example.userService.service.IUserService;
+import com.example.userService.service.UserBulkImportService;
+import com.example.userService.service.UserExportService;
+import com.example.userService.service.UserListingService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import javax.validation.Valid;
 import javax.validation.constraints.NotNull;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/user")
@@ -23,13 +36,108 @@ public class UserController {
 
     private final IUserService userService;
 
+    private final UserBulkImportService bulkImportService;
+
+    private final UserExportService exportService;
+
+    private final UserListingService listingService;
+
     @PostMapping("/sign-up")
-    public ResponseEntity<UserResponse> signUp(@Valid @RequestBody UserRequest request) {
-        return ResponseEntity.status(HttpStatus.CREATED).body(userService.createUser(request));
+    public CompletableFuture<ResponseEntity<UserResponse>> signUp(@Valid @RequestBody UserRequest request) {
+        return userService.createUser(request)
+                .thenApply(response -> ResponseEntity.status(HttpStatus.CREATED).body(response));
+    }
+
+    /**
+     * Registers users from a newline-delimited JSON body, one {@link UserRequest} per line.
+     * <p>
+     * Both the request and the response are streamed: one result per input line is written
+     * as soon as the chunk containing it has been stored.
+     *
+     * @param body the raw request body
+     * @return a stream of {@link com.example.userService.dto.BulkSignUpResult} records
+     */
+    @PostMapping(value = "/bulk", consumes = MediaType.APPLICATION_NDJSON_VALUE, produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> bulkSignUp(InputStream body) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(output -> bulkImportService.importUsers(body, output));
+    }
+
+    /**
+     * Lists users page by page, oldest first.
+     *
+     * @param cursor      the {@code nextCursor} of the previous page; omitted for the first page
+     * @param limit       maximum number of users in the page
+     * @param namePrefix  only users whose name starts with this value
+     * @param active      only users with this active flag
+     * @param countryCode only users with a phone in this country
+     * @return the page of users, without passwords or tokens
+     */
+    @GetMapping
+    public ResponseEntity<UserPage> list(@RequestParam(required = false) String cursor,
+                                         @RequestParam(defaultValue = "50") int limit,
+                                         @RequestParam(required = false) String namePrefix,
+                                         @RequestParam(required = false) Boolean active,
+                                         @RequestParam(required = false) String countryCode) {
+        var criteria = UserSearchCriteria.builder()
+                .namePrefix(namePrefix)
+                .active(active)
+                .countryCode(countryCode)
+                .build();
+        return ResponseEntity.ok(listingService.listUsers(criteria, cursor, limit));
+    }
+
+    /**
+     * Streams every user with their phones, without passwords or tokens.
+     *
+     * @param format {@code ndjson} (default) or {@code csv}
+     * @return the users in the requested format
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "ndjson") String format) {
+        var exportFormat = UserExportService.Format.from(format);
+        return ResponseEntity.ok()
+                .contentType(exportFormat.getMediaType())
+                .body(output -> exportService.exportUsers(exportFormat, output));
     }
 
     @GetMapping("/login")
-    public ResponseEntity<UserResponse> login(@NotNull @RequestHeader("Authorization") String token) {
-        return ResponseEntity.ok(userService.login(token));
+    public CompletableFuture<ResponseEntity<UserResponse>> login(@NotNull @RequestHeader("Authorization") String token) {
+        return userService.login(token).thenApply(ResponseEntity::ok);
+    }
+
+    /**
+     * Authenticates with email and password, for clients without a valid token.
+     *
+     * @param request the email and password
+     * @return the user profile with a new access token and refresh token
+     */
+    @PostMapping("/sign-in")
+    public CompletableFuture<ResponseEntity<UserResponse>> signIn(@Valid @RequestBody LoginRequest request) {
+        return userService.signIn(request).thenApply(ResponseEntity::ok);
+    }
+
+    /**
+     * Exchanges a refresh token for a new token pair, without the profile returned by {@code /login}.
+     *
+     * @param request the refresh token to consume
+     * @return the new access and refresh tokens
+     */
+    @PostMapping("/token/refresh")
+    public ResponseEntity<TokenResponse> refreshToken(@Valid @RequestBody RefreshTokenRequest request) {
+        return ResponseEntity.ok(userService.refreshToken(request.getRefreshToken()));
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@NotNull @RequestHeader("Authorization") String token) {
+        userService.logout(token);
+        return ResponseEntity.noContent().build();
+    }
+
+    @PostMapping("/logout-all")
+    public ResponseEntity<Void> logoutAll(@NotNull @RequestHeader("Authorization") String token) {
+        userService.logoutAll(token);
+        return ResponseEntity.noContent().build();
     }
 }
\ No newline at end of file
@@ -0,0 +1,35 @@
+package com.example.userService.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Outcome of a single line of a bulk sign-up.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Builder
+@Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkSignUpResult {
+
+    public enum Status {
+        CREATED,
+        DUPLICATE,
+        INVALID
+    }
+
+    private long line;
+    private String email;
+    private Status status;
+    private UUID id;
+    private List<String> errors;
+}
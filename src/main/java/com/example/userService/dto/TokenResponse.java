@@ -0,0 +1,23 @@
+package com.example.userService.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+/**
+ * A new access token and the refresh token to use next time.
+ * <p>
+ * {@code expiresIn} is the lifetime of the access token in seconds.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Builder
+@Setter
+public class TokenResponse {
+    private String token;
+    private String refreshToken;
+    private long expiresIn;
+}
@@ -0,0 +1,26 @@
+package com.example.userService.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+
+import java.util.List;
+
+/**
+ * One page of a user listing.
+ * <p>
+ * {@code nextCursor} is an opaque token to pass back to get the following page; it is absent on the last page.
+ */
+@AllArgsConstructor
+@NoArgsConstructor
+@Getter
+@Builder
+@Setter
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class UserPage {
+    private List<UserResponse> users;
+    private String nextCursor;
+}
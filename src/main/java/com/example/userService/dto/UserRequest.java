@@ -1,14 +1,14 @@
 package com.example.userService.dto;
 
+import com.example.userService.validation.ValidEmail;
+import com.example.userService.validation.ValidPassword;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 
-import javax.validation.constraints.Email;
 import javax.validation.constraints.NotNull;
-import javax.validation.constraints.Pattern;
 import java.util.Set;
 
 @AllArgsConstructor
@@ -17,11 +17,11 @@ import java.util.Set;
 @Builder
 @Setter
 public class UserRequest {
-    @Email(regexp = "^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$")
+    @ValidEmail
     @NotNull
     private String email;
 
-    @Pattern(regexp = "^(?=.*[a-z])(?=.*[A-Z])(?=(?:.*\\d.*){2})[A-Za-z\\d]{8,12}$", message = "{password.format}")
+    @ValidPassword
     @NotNull
     private String password;
     private String name;
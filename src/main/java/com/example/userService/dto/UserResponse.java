@@ -25,6 +25,7 @@ public class UserResponse {
     private LocalDateTime created;
     private LocalDateTime lastLogin;
     private String token;
+    private String refreshToken;
     private boolean isActive;
     private String name;
     private String email;
@@ -1,14 +1,22 @@
 package com.example.userService.entity;
 
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.springframework.data.domain.Persistable;
 
-import javax.persistence.Column;
 import javax.persistence.Entity;
+import javax.persistence.FetchType;
 import javax.persistence.Id;
+import javax.persistence.Index;
+import javax.persistence.JoinColumn;
+import javax.persistence.ManyToOne;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
 import javax.persistence.Table;
+import javax.persistence.Transient;
 import javax.persistence.UniqueConstraint;
 import java.util.Objects;
 import java.util.UUID;
@@ -16,13 +24,14 @@ import java.util.UUID;
 @Entity
 @Table(
         name = "phone",
-        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "number", "cityCode", "countryCode"})
+        uniqueConstraints = @UniqueConstraint(columnNames = {"user_id", "number", "cityCode", "countryCode"}),
+        indexes = @Index(name = "idx_phone_country_code_user", columnList = "countryCode, user_id")
 )
 @AllArgsConstructor
 @NoArgsConstructor
 @Getter
 @Setter
-public class Phone {
+public class Phone implements Persistable<UUID> {
 
     @Id
     private UUID id;
@@ -30,6 +39,28 @@ public class Phone {
     private Integer cityCode;
     private String countryCode;
 
+    /** Owning side of {@link User#getPhones()}, so {@code user_id} is written by the phone insert itself. */
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "user_id")
+    private User user;
+
+    /** Whether this instance has never been stored; see {@link User#isNew()}. */
+    @Transient
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean newEntity = true;
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        newEntity = false;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
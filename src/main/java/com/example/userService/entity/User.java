@@ -1,11 +1,14 @@
 package com.example.userService.entity;
 
+import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.BatchSize;
+import org.springframework.data.domain.Persistable;
 
 
 import javax.persistence.CascadeType;
@@ -13,30 +16,62 @@ import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
 import javax.persistence.Id;
-import javax.persistence.JoinColumn;
+import javax.persistence.Index;
 import javax.persistence.OneToMany;
+import javax.persistence.PostLoad;
+import javax.persistence.PostPersist;
+import javax.persistence.Table;
+import javax.persistence.Transient;
+import javax.persistence.UniqueConstraint;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
 import java.util.Set;
 import java.util.UUID;
 
 @Entity
+@Table(
+        name = "users",
+        uniqueConstraints = {
+                @UniqueConstraint(name = User.EMAIL_CONSTRAINT, columnNames = "email"),
+                @UniqueConstraint(name = User.EMAIL_NORMALIZED_CONSTRAINT, columnNames = "email_normalized")
+        },
+        indexes = {
+                @Index(name = "idx_user_created_id", columnList = "created, id"),
+                @Index(name = "idx_user_name", columnList = "name")
+        }
+)
 @AllArgsConstructor
 @NoArgsConstructor
 @Getter
 @Builder
 @Setter
-public class User {
+public class User implements Persistable<UUID> {
+
+    /** Name of the unique constraint on {@link #email}, used to recognise duplicate sign-ups. */
+    public static final String EMAIL_CONSTRAINT = "uk_user_email";
+
+    /** Name of the unique index on {@link #emailNormalized}, which also rejects emails differing only in case. */
+    public static final String EMAIL_NORMALIZED_CONSTRAINT = "uk_user_email_normalized";
+
     @Id
     private UUID id;
 
-    @Column(unique = true)
     private String email;
 
+    /**
+     * {@link #email} as returned by {@link #normalizeEmail(String)}, the value every lookup searches.
+     * Rows stored before the column existed hold {@code null} until the backfill reaches them.
+     */
+    @Column(name = "email_normalized")
+    private String emailNormalized;
+
     private String password;
 
     private String name;
 
+    /** Room for a {@code jti}, a {@code sid}, a long email and an ECDSA or RSA signature. */
+    @Column(length = 1024)
     private String token;
 
     private boolean isActive;
@@ -46,8 +81,40 @@ public class User {
     private LocalDateTime lastLogin;
 
 
-    @OneToMany(cascade = CascadeType.ALL, orphanRemoval = true,fetch = FetchType.LAZY)
-    @JoinColumn(name = "user_id")
+    /** Loaded lazily; when several users are listed, their phones are loaded together in batches. */
+    @OneToMany(mappedBy = "user", cascade = CascadeType.ALL, orphanRemoval = true,fetch = FetchType.LAZY)
+    @BatchSize(size = 100)
     private Set<Phone> phones;
 
+    /**
+     * Whether this instance has never been stored. Ids are assigned by the application, so Spring Data
+     * cannot infer it from the id and would otherwise {@code merge} (and {@code SELECT}) every new user.
+     */
+    @Transient
+    @Builder.Default
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean newEntity = true;
+
+    @Override
+    public boolean isNew() {
+        return newEntity;
+    }
+
+    @PostLoad
+    @PostPersist
+    void markNotNew() {
+        newEntity = false;
+    }
+
+    /**
+     * Turns an email into the form that identifies its account, so that addresses differing only in case or
+     * surrounding blanks belong to the same user.
+     *
+     * @param email the email as entered, may be {@code null}
+     * @return the trimmed, lower-cased email, or {@code null}
+     */
+    public static String normalizeEmail(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
 }
\ No newline at end of file
@@ -1,6 +1,9 @@
 package com.example.userService.exceptions;
 
 import com.example.userService.dto.ErrorResponse;
+import com.example.userService.service.UserMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -16,10 +19,14 @@ import java.util.stream.Collectors;
  * <p>
  * Captures and handles exceptions thrown from anywhere in the application
  * and converts them into consistent {@link ErrorResponse} objects.
+ * Duplicate users, unknown users and validation failures are counted in {@link UserMetrics}.
  */
 @RestControllerAdvice
+@RequiredArgsConstructor
 public class GlobalExceptionHandler {
 
+    private final UserMetrics userMetrics;
+
     /**
      * Handles {@link UserAlreadyExistException} and returns a 400 Bad Request.
      *
@@ -28,6 +35,37 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(UserAlreadyExistException.class)
     public ResponseEntity<ErrorResponse> handleUserAlreadyExistException(UserAlreadyExistException ex) {
+        userMetrics.error("already_exists");
+        var errorDetail = new ErrorResponse.ErrorDetail(
+                Instant.now(),
+                HttpStatus.BAD_REQUEST.value(),
+                ex.getMessage()
+        );
+        return new ResponseEntity<>(new ErrorResponse(List.of(errorDetail)), HttpStatus.BAD_REQUEST);
+    }
+    /**
+     * Handles {@link InvalidCursorException} and returns a 400 Bad Request.
+     *
+     * @param ex the exception instance
+     * @return a structured error response with timestamp and message
+     */
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidCursorException(InvalidCursorException ex) {
+        var errorDetail = new ErrorResponse.ErrorDetail(
+                Instant.now(),
+                HttpStatus.BAD_REQUEST.value(),
+                ex.getMessage()
+        );
+        return new ResponseEntity<>(new ErrorResponse(List.of(errorDetail)), HttpStatus.BAD_REQUEST);
+    }
+    /**
+     * Handles {@link UnsupportedExportFormatException} and returns a 400 Bad Request.
+     *
+     * @param ex the exception instance
+     * @return a structured error response with timestamp and message
+     */
+    @ExceptionHandler(UnsupportedExportFormatException.class)
+    public ResponseEntity<ErrorResponse> handleUnsupportedExportFormatException(UnsupportedExportFormatException ex) {
         var errorDetail = new ErrorResponse.ErrorDetail(
                 Instant.now(),
                 HttpStatus.BAD_REQUEST.value(),
@@ -35,6 +73,37 @@ public class GlobalExceptionHandler {
         );
         return new ResponseEntity<>(new ErrorResponse(List.of(errorDetail)), HttpStatus.BAD_REQUEST);
     }
+    /**
+     * Handles {@link InvalidRefreshTokenException} and returns a 401 Unauthorized.
+     *
+     * @param ex the exception instance
+     * @return a structured error response with timestamp and message
+     */
+    @ExceptionHandler(InvalidRefreshTokenException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidRefreshTokenException(InvalidRefreshTokenException ex) {
+        var errorDetail = new ErrorResponse.ErrorDetail(
+                Instant.now(),
+                HttpStatus.UNAUTHORIZED.value(),
+                ex.getMessage()
+        );
+        return new ResponseEntity<>(new ErrorResponse(List.of(errorDetail)), HttpStatus.UNAUTHORIZED);
+    }
+    /**
+     * Handles {@link InvalidCredentialsException} and returns a 401 Unauthorized.
+     *
+     * @param ex the exception instance
+     * @return a structured error response with timestamp and message
+     */
+    @ExceptionHandler(InvalidCredentialsException.class)
+    public ResponseEntity<ErrorResponse> handleInvalidCredentialsException(InvalidCredentialsException ex) {
+        userMetrics.error("invalid_credentials");
+        var errorDetail = new ErrorResponse.ErrorDetail(
+                Instant.now(),
+                HttpStatus.UNAUTHORIZED.value(),
+                ex.getMessage()
+        );
+        return new ResponseEntity<>(new ErrorResponse(List.of(errorDetail)), HttpStatus.UNAUTHORIZED);
+    }
     /**
      * Handles {@link UserNotFoundException} and returns a 404 Not Found.
      *
@@ -43,9 +112,28 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(UserNotFoundException.class)
     public ResponseEntity<ErrorResponse> handleUserNotFoundException(UserNotFoundException ex) {
+        userMetrics.error("not_found");
         return  ResponseEntity.notFound().build();
     }
 
+    /**
+     * Handles {@link HashingCapacityExceededException} and returns a 503 Service Unavailable.
+     *
+     * @param ex the exception instance
+     * @return a structured error response with a {@code Retry-After} header
+     */
+    @ExceptionHandler(HashingCapacityExceededException.class)
+    public ResponseEntity<ErrorResponse> handleHashingCapacityExceededException(HashingCapacityExceededException ex) {
+        var errorDetail = new ErrorResponse.ErrorDetail(
+                Instant.now(),
+                HttpStatus.SERVICE_UNAVAILABLE.value(),
+                ex.getMessage()
+        );
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(new ErrorResponse(List.of(errorDetail)));
+    }
+
     /**
      * Handles validation errors triggered by {@code @Valid} annotated DTOs.
      *
@@ -54,6 +142,7 @@ public class GlobalExceptionHandler {
      */
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorResponse> handleValidationException(MethodArgumentNotValidException ex) {
+        userMetrics.error("validation");
         var errors = ex.getBindingResult().getFieldErrors().stream()
                 .map(err -> new ErrorResponse.ErrorDetail(
                         Instant.now(),
@@ -0,0 +1,16 @@
+package com.example.userService.exceptions;
+
+import lombok.Getter;
+
+@Getter
+public class HashingCapacityExceededException extends RuntimeException {
+
+    private static final String DEFAULT_MESSAGE = "Service busy, please retry later";
+
+    private final long retryAfterSeconds;
+
+    public HashingCapacityExceededException(long retryAfterSeconds) {
+        super(DEFAULT_MESSAGE);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.userService.exceptions;
+
+public class InvalidCredentialsException extends RuntimeException {
+
+    private static final String DEFAULT_MESSAGE = "Invalid email or password";
+    public InvalidCredentialsException() {
+        super(DEFAULT_MESSAGE);
+    }
+}
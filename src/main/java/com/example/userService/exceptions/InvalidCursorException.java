@@ -0,0 +1,9 @@
+package com.example.userService.exceptions;
+
+public class InvalidCursorException extends RuntimeException {
+
+    private static final String DEFAULT_MESSAGE = "Invalid page cursor";
+    public InvalidCursorException() {
+        super(DEFAULT_MESSAGE);
+    }
+}
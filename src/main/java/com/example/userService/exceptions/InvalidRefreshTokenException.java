@@ -0,0 +1,9 @@
+package com.example.userService.exceptions;
+
+public class InvalidRefreshTokenException extends RuntimeException {
+
+    private static final String DEFAULT_MESSAGE = "Invalid refresh token";
+    public InvalidRefreshTokenException() {
+        super(DEFAULT_MESSAGE);
+    }
+}
@@ -0,0 +1,9 @@
+package com.example.userService.exceptions;
+
+public class UnsupportedExportFormatException extends RuntimeException {
+
+    private static final String DEFAULT_MESSAGE = "Unsupported export format";
+    public UnsupportedExportFormatException() {
+        super(DEFAULT_MESSAGE);
+    }
+}
@@ -1,10 +1,14 @@
 package com.example.userService.factory;
 
 import com.example.userService.dto.UserResponse;
+import com.example.userService.entity.Phone;
 import com.example.userService.entity.User;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
+import java.time.LocalDateTime;
+import java.util.Set;
+
 /**
  * Factory for creating {@link UserResponse} DTOs from {@link User} entities.
  * <p>
@@ -32,6 +36,29 @@ public class UserServiceDtoFactory {
                 .isActive(user.isActive())
                 .build();
     }
+
+    /**
+     * Converts a {@link User} entity into a {@link UserResponse} for exports and listings.
+     * <p>
+     * Includes the profile and phones but never the password or token.
+     *
+     * @param user   the user entity to convert
+     * @param phones the phones of the user, loaded separately from the entity
+     * @return a {@link UserResponse} without credentials
+     */
+    public UserResponse toExportResponse(User user, Set<Phone> phones) {
+
+        return UserResponse.builder()
+                .id(user.getId())
+                .created(user.getCreated())
+                .lastLogin(user.getLastLogin())
+                .isActive(user.isActive())
+                .name(user.getName())
+                .email(user.getEmail())
+                .phoneList(PhoneServiceFactory.toDtoList(phones))
+                .build();
+    }
+
     /**
      * Converts a {@link User} entity into a detailed {@link UserResponse} for login operations.
      * <p>
@@ -42,12 +69,27 @@ public class UserServiceDtoFactory {
      * @return a full {@link UserResponse} including user profile and contact details
      */
     public UserResponse toLoginResponse(User user) {
+        return toLoginResponse(user, user.getLastLogin(), user.getToken());
+    }
+
+    /**
+     * Converts a {@link User} entity into a detailed {@link UserResponse} for login operations,
+     * using the login time and token of the current login instead of the stored ones.
+     * <p>
+     * Lets callers answer from a shared, read-only entity without modifying it.
+     *
+     * @param user      the user entity to convert
+     * @param lastLogin the time of the current login
+     * @param token     the token issued on the current login
+     * @return a full {@link UserResponse} including user profile and contact details
+     */
+    public UserResponse toLoginResponse(User user, LocalDateTime lastLogin, String token) {
 
         return UserResponse.builder()
                 .id(user.getId())
                 .created(user.getCreated())
-                .lastLogin(user.getLastLogin())
-                .token(user.getToken())
+                .lastLogin(lastLogin)
+                .token(token)
                 .isActive(user.isActive())
                 .name(user.getName())
                 .email(user.getEmail())
@@ -27,26 +27,44 @@ public class UserServiceFactory {
      * This method:
      * <ul>
      *     <li>Generates a unique ID for the user</li>
+     *     <li>Stores the normalized email used by lookups next to the email as entered</li>
      *     <li>Encodes the raw password using the configured {@link PasswordEncoder}</li>
      *     <li>Sets creation and last login timestamps to the current time</li>
      *     <li>Initializes the account as active</li>
      *     <li>Maps the list of phone DTOs to phone entities using {@link PhoneServiceFactory}</li>
+     *     <li>Links every phone back to its user</li>
      * </ul>
      *
      * @param request the user input data coming from the API
      * @return a new {@link User} entity ready to be persisted
      */
     public User from(UserRequest request){
+        return from(request, encoder.encode(request.getPassword()));
+    }
+
+    /**
+     * Converts a {@link UserRequest} DTO into a {@link User} entity using a password that was already encoded.
+     * <p>
+     * Used when the password is hashed elsewhere, e.g. on the dedicated hashing pool.
+     *
+     * @param request         the user input data coming from the API
+     * @param encodedPassword the password encoded with the configured {@link PasswordEncoder}
+     * @return a new {@link User} entity ready to be persisted
+     */
+    public User from(UserRequest request, String encodedPassword){
 
-        return User.builder()
+        var user = User.builder()
                 .id(UUID.randomUUID())
                 .email(request.getEmail())
-                .password(encoder.encode(request.getPassword()))
+                .emailNormalized(User.normalizeEmail(request.getEmail()))
+                .password(encodedPassword)
                 .name(request.getName())
                 .created(LocalDateTime.now())
                 .lastLogin(LocalDateTime.now())
                 .isActive(Boolean.TRUE)
                 .phones(PhoneServiceFactory.fromDtoList(request.getPhones()))
                 .build();
+        user.getPhones().forEach(phone -> phone.setUser(user));
+        return user;
     }
 }
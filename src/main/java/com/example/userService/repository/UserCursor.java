@@ -0,0 +1,58 @@
+package com.example.userService.repository;
+
+import com.example.userService.exceptions.InvalidCursorException;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+import java.util.UUID;
+
+/**
+ * Position in a user listing ordered by {@code (created, id)}: the key of the last user returned.
+ * <p>
+ * Clients only see it encoded as an opaque URL-safe token.
+ */
+@Getter
+@RequiredArgsConstructor
+public class UserCursor {
+
+    private static final char SEPARATOR = '|';
+
+    private final LocalDateTime created;
+
+    private final UUID id;
+
+    /**
+     * Encodes this position as an opaque token.
+     *
+     * @return a URL-safe token
+     */
+    public String encode() {
+        var key = created.toString() + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode()}.
+     *
+     * @param token the token received from a client
+     * @return the position it represents
+     * @throws InvalidCursorException if the token was not produced by this service
+     */
+    public static UserCursor decode(String token) {
+        try {
+            var key = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int separator = key.indexOf(SEPARATOR);
+            if (separator < 0) {
+                throw new InvalidCursorException();
+            }
+            return new UserCursor(LocalDateTime.parse(key.substring(0, separator)),
+                    UUID.fromString(key.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new InvalidCursorException();
+        }
+    }
+}
@@ -1,25 +1,128 @@
 package com.example.userService.repository;
 
+import com.example.userService.entity.Phone;
 import com.example.userService.entity.User;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.QueryHint;
+
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 /**
  * Repository interface for {@link User} entity.
  * <p>
- * Provides basic CRUD operations and custom queries using Spring Data JPA.
+ * Provides basic CRUD operations and custom queries using Spring Data JPA,
+ * plus the insert-only operations of {@link UserRepositoryCustom}.
+ * <p>
+ * The lookups run in read-only transactions, which a read replica serves when one is configured.
  */
 @Repository
-public interface UserRepository extends JpaRepository<User, UUID> {
+public interface UserRepository extends JpaRepository<User, UUID>, UserRepositoryCustom {
+
+    /** Rows fetched per round trip by {@link #streamAll()}. */
+    String STREAM_FETCH_SIZE = "500";
+
+    /**
+     * Retrieves a user by their normalized email, through its unique index.
+     *
+     * @param emailNormalized the email as returned by {@link User#normalizeEmail(String)}
+     * @return an {@link Optional} containing the user if found, or empty if not
+     */
+    @Transactional(readOnly = true)
+    Optional<User> findByEmailNormalized(String emailNormalized);
 
     /**
-     * Retrieves a user by their email address.
+     * Retrieves a user by their normalized email together with their phones, in a single query.
+     *
+     * @param emailNormalized the email as returned by {@link User#normalizeEmail(String)}
+     * @return an {@link Optional} containing the user with initialized phones, or empty if not found
+     */
+    @Transactional(readOnly = true)
+    @EntityGraph(attributePaths = "phones")
+    Optional<User> findWithPhonesByEmailNormalized(String emailNormalized);
+
+    /**
+     * Retrieves a user by the exact email they registered with.
+     * <p>
+     * Only needed for rows the {@link com.example.userService.service.EmailNormalizationBackfill} has not
+     * reached yet; every other lookup goes through the normalized email.
      *
      * @param email the email to search for
      * @return an {@link Optional} containing the user if found, or empty if not
      */
+    @Transactional(readOnly = true)
     Optional<User> findByEmail(String email);
+
+    /**
+     * Retrieves a user by the exact email they registered with, together with their phones, in a single query.
+     * Like {@link #findByEmail(String)}, only needed until the backfill completes.
+     *
+     * @param email the email to search for
+     * @return an {@link Optional} containing the user with initialized phones, or empty if not found
+     */
+    @Transactional(readOnly = true)
+    @EntityGraph(attributePaths = "phones")
+    Optional<User> findWithPhonesByEmail(String email);
+
+    /**
+     * Returns which of the given normalized emails are already registered, in a single query.
+     *
+     * @param emailsNormalized the emails to check, as returned by {@link User#normalizeEmail(String)}
+     * @return the subset of {@code emailsNormalized} that belong to existing users
+     */
+    @Transactional(readOnly = true)
+    @Query("select u.emailNormalized from User u where u.emailNormalized in :emails")
+    Set<String> findExistingNormalizedEmails(@Param("emails") Collection<String> emailsNormalized);
+
+    /**
+     * Replaces the stored password hash of a user, such as after re-encoding it with the current parameters.
+     *
+     * @param id       the id of the user
+     * @param password the new encoded password
+     * @return the number of updated rows
+     */
+    @Transactional
+    @Modifying
+    @Query("update User u set u.password = :password where u.id = :id")
+    int updatePassword(@Param("id") UUID id, @Param("password") String password);
+
+    /**
+     * Streams every user, without their phones, over a forward-only cursor.
+     * <p>
+     * Rows are fetched {@value #STREAM_FETCH_SIZE} at a time and loaded read-only. The stream must be consumed
+     * inside a transaction and closed afterwards; callers should detach or clear the loaded users as they go
+     * to keep memory flat.
+     *
+     * @return a lazily populated stream of users
+     */
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = STREAM_FETCH_SIZE),
+            @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    @Query("select u from User u")
+    Stream<User> streamAll();
+
+    /**
+     * Loads the phones of several users in a single query.
+     *
+     * @param userIds the ids of the owners
+     * @return the phones of all given users
+     */
+    @Query("select p from Phone p where p.user.id in :userIds")
+    List<Phone> findPhonesByUserIds(@Param("userIds") Collection<UUID> userIds);
 }
@@ -0,0 +1,49 @@
+package com.example.userService.repository;
+
+import com.example.userService.entity.User;
+
+import java.util.List;
+
+/**
+ * Custom persistence operations for {@link User} that are not covered by Spring Data JPA.
+ */
+public interface UserRepositoryCustom {
+
+    /**
+     * Inserts a new user with a single {@code INSERT}, without checking first whether it exists.
+     * <p>
+     * Unlike {@code save}, this never goes through {@code merge}, so no {@code SELECT} is issued
+     * for the application-assigned id. Duplicate emails are detected by the database unique constraint.
+     *
+     * @param user the new user to persist
+     * @return the persisted user
+     * @throws com.example.userService.exceptions.UserAlreadyExistException if the email is already registered
+     */
+    User insert(User user);
+
+    /**
+     * Inserts new users in a single transaction, letting Hibernate group the statements into JDBC batches.
+     * <p>
+     * The persistence context is flushed and cleared every {@code hibernate.jdbc.batch_size} users, so memory
+     * stays bounded however many users are given.
+     *
+     * @param users the new users to persist
+     * @throws com.example.userService.exceptions.UserAlreadyExistException if any email is already registered,
+     * in which case none of the users is stored
+     */
+    void insertAll(List<User> users);
+
+    /**
+     * Lists users ordered by {@code (created, id)} using keyset pagination.
+     * <p>
+     * Instead of an {@code OFFSET}, the query seeks directly past the last user of the previous page,
+     * so every page costs the same however deep it is. Phones are not fetched; they are batch-loaded
+     * on first access.
+     *
+     * @param criteria filters to apply
+     * @param after    the key of the last user of the previous page, or {@code null} for the first page
+     * @param limit    maximum number of users to return
+     * @return the users of the page, in order
+     */
+    List<User> findPage(UserSearchCriteria criteria, UserCursor after, int limit);
+}
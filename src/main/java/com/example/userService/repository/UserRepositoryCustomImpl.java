@@ -0,0 +1,126 @@
+package com.example.userService.repository;
+
+import com.example.userService.entity.Phone;
+import com.example.userService.entity.User;
+import com.example.userService.exceptions.UserAlreadyExistException;
+import org.hibernate.exception.ConstraintViolationException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceException;
+import javax.persistence.criteria.Predicate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Implementation of {@link UserRepositoryCustom}, picked up by Spring Data as a repository fragment.
+ */
+public class UserRepositoryCustomImpl implements UserRepositoryCustom {
+
+    private static final char LIKE_ESCAPE = '\\';
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Value("${spring.jpa.properties.hibernate.jdbc.batch_size:50}")
+    private int batchSize;
+
+    @Override
+    @Transactional
+    public User insert(User user) {
+        try {
+            entityManager.persist(user);
+            entityManager.flush();
+            return user;
+        } catch (PersistenceException ex) {
+            if (isEmailConstraintViolation(ex)) {
+                throw new UserAlreadyExistException();
+            }
+            throw ex;
+        }
+    }
+
+    @Override
+    @Transactional
+    public void insertAll(List<User> users) {
+        try {
+            for (int i = 0; i < users.size(); i++) {
+                entityManager.persist(users.get(i));
+                if ((i + 1) % batchSize == 0) {
+                    entityManager.flush();
+                    entityManager.clear();
+                }
+            }
+            entityManager.flush();
+            entityManager.clear();
+        } catch (PersistenceException ex) {
+            if (isEmailConstraintViolation(ex)) {
+                throw new UserAlreadyExistException();
+            }
+            throw ex;
+        }
+    }
+
+    @Override
+    public List<User> findPage(UserSearchCriteria criteria, UserCursor after, int limit) {
+        var cb = entityManager.getCriteriaBuilder();
+        var query = cb.createQuery(User.class);
+        var user = query.from(User.class);
+        var predicates = new ArrayList<Predicate>();
+
+        if (after != null) {
+            // (created, id) > (:created, :id), written so that the leading bound starts an index range scan
+            predicates.add(cb.greaterThanOrEqualTo(user.get("created"), after.getCreated()));
+            predicates.add(cb.or(
+                    cb.greaterThan(user.get("created"), after.getCreated()),
+                    cb.greaterThan(user.get("id"), after.getId())));
+        }
+        if (criteria.getNamePrefix() != null) {
+            predicates.add(cb.like(user.get("name"), escapeLike(criteria.getNamePrefix()) + "%", LIKE_ESCAPE));
+        }
+        if (criteria.getActive() != null) {
+            predicates.add(cb.equal(user.get("isActive"), criteria.getActive()));
+        }
+        if (criteria.getCountryCode() != null) {
+            var phones = query.subquery(Integer.class);
+            var phone = phones.from(Phone.class);
+            phones.select(cb.literal(1))
+                    .where(cb.equal(phone.get("user"), user),
+                            cb.equal(phone.get("countryCode"), criteria.getCountryCode()));
+            predicates.add(cb.exists(phones));
+        }
+
+        query.select(user)
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(cb.asc(user.get("created")), cb.asc(user.get("id")));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /**
+     * Checks whether the failure was caused by one of the unique constraints on the user email.
+     *
+     * @param ex the exception raised while flushing the insert
+     * @return {@code true} if the violated constraint is {@link User#EMAIL_CONSTRAINT}
+     * or {@link User#EMAIL_NORMALIZED_CONSTRAINT}
+     */
+    private static boolean isEmailConstraintViolation(PersistenceException ex) {
+        if (!(ex.getCause() instanceof ConstraintViolationException)) {
+            return false;
+        }
+        var constraintName = ((ConstraintViolationException) ex.getCause()).getConstraintName();
+        if (constraintName == null) {
+            return false;
+        }
+        var name = constraintName.toLowerCase(Locale.ROOT);
+        return name.contains(User.EMAIL_NORMALIZED_CONSTRAINT) || name.contains(User.EMAIL_CONSTRAINT);
+    }
+}
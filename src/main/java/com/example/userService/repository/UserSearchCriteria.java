@@ -0,0 +1,21 @@
+package com.example.userService.repository;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * Optional filters of a user listing; {@code null} fields are not applied.
+ */
+@Getter
+@Builder
+public class UserSearchCriteria {
+
+    /** Case-sensitive prefix the user name must start with. */
+    private final String namePrefix;
+
+    /** Required value of the active flag. */
+    private final Boolean active;
+
+    /** Country code of at least one of the user's phones. */
+    private final String countryCode;
+}
@@ -0,0 +1,207 @@
+package com.example.userService.security;
+
+import lombok.Getter;
+import org.springframework.security.crypto.argon2.Argon2PasswordEncoder;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.crypto.password.Pbkdf2PasswordEncoder;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Delegating password encoder that hashes with one configurable algorithm and cost,
+ * while still matching hashes produced with any previous setting.
+ * <p>
+ * Encoded passwords carry their algorithm as a {@code {id}} prefix, the same format used by
+ * Spring's {@code DelegatingPasswordEncoder}:
+ * <ul>
+ *     <li>{@code {bcrypt}$2a$12$...} — the strength is part of the hash.</li>
+ *     <li>{@code {argon2}$argon2id$v=19$m=4096,t=3,p=1$...} — memory and iterations are part of the hash.</li>
+ *     <li>{@code {pbkdf2@185000}...} — the iteration count is part of the id, since PBKDF2 hashes do not store it.</li>
+ *     <li>Hashes without prefix are legacy BCrypt hashes.</li>
+ * </ul>
+ * {@link #upgradeEncoding(String)} reports every hash whose algorithm or cost differs from the current
+ * configuration; {@code PasswordHashingService.verify} re-encodes those on sign-in, the one place that holds the
+ * raw password.
+ */
+public class AdaptivePasswordEncoder implements PasswordEncoder {
+
+    /** Supported hashing algorithms. */
+    public enum Algorithm {
+        BCRYPT, PBKDF2, ARGON2;
+
+        public static Algorithm from(String name) {
+            return valueOf(name.trim().toUpperCase(Locale.ROOT));
+        }
+    }
+
+    private static final String PREFIX = "{";
+    private static final String SUFFIX = "}";
+    private static final String BCRYPT_ID = "bcrypt";
+    private static final String ARGON2_ID = "argon2";
+    private static final String PBKDF2_ID = "pbkdf2@";
+
+    private static final int ARGON2_SALT_LENGTH = 16;
+    private static final int ARGON2_HASH_LENGTH = 32;
+    private static final int ARGON2_PARALLELISM = 1;
+    private static final int PBKDF2_SALT_LENGTH = 16;
+    private static final int PBKDF2_HASH_WIDTH = 256;
+
+    @Getter
+    private final Algorithm algorithm;
+
+    /** BCrypt strength, PBKDF2 iterations or Argon2 iterations, depending on the algorithm. */
+    @Getter
+    private final int cost;
+
+    /** Argon2 memory in KiB; ignored by the other algorithms. */
+    private final int argon2MemoryKb;
+
+    private final String currentId;
+
+    private final PasswordEncoder current;
+
+    private final PasswordEncoder bcryptMatcher = new BCryptPasswordEncoder();
+
+    private final PasswordEncoder argon2Matcher;
+
+    /** PBKDF2 encoders for every iteration count seen so far, created on demand. */
+    private final Map<Integer, PasswordEncoder> pbkdf2Matchers = new ConcurrentHashMap<>();
+
+    public AdaptivePasswordEncoder(Algorithm algorithm, int cost, int argon2MemoryKb) {
+        this.algorithm = algorithm;
+        this.cost = cost;
+        this.argon2MemoryKb = argon2MemoryKb;
+        this.argon2Matcher = argon2(argon2MemoryKb, 1);
+
+        switch (algorithm) {
+            case BCRYPT:
+                currentId = BCRYPT_ID;
+                current = new BCryptPasswordEncoder(cost);
+                break;
+            case PBKDF2:
+                currentId = PBKDF2_ID + cost;
+                current = pbkdf2(cost);
+                break;
+            case ARGON2:
+                currentId = ARGON2_ID;
+                current = argon2(argon2MemoryKb, cost);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported algorithm " + algorithm);
+        }
+    }
+
+    /**
+     * Creates a standalone encoder for the given parameters, without the {@code {id}} prefix.
+     * Used to measure the cost of a setting.
+     *
+     * @param algorithm      the hashing algorithm
+     * @param cost           the algorithm specific cost
+     * @param argon2MemoryKb Argon2 memory in KiB
+     * @return a plain encoder for the given parameters
+     */
+    static PasswordEncoder encoderFor(Algorithm algorithm, int cost, int argon2MemoryKb) {
+        switch (algorithm) {
+            case BCRYPT:
+                return new BCryptPasswordEncoder(cost);
+            case PBKDF2:
+                return pbkdf2(cost);
+            case ARGON2:
+                return argon2(argon2MemoryKb, cost);
+            default:
+                throw new IllegalArgumentException("Unsupported algorithm " + algorithm);
+        }
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return PREFIX + currentId + SUFFIX + current.encode(rawPassword);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        if (rawPassword == null || encodedPassword == null) {
+            return false;
+        }
+        String id = extractId(encodedPassword);
+        if (id == null) {
+            return bcryptMatcher.matches(rawPassword, encodedPassword);
+        }
+        PasswordEncoder matcher = matcherFor(id);
+        return matcher != null && matcher.matches(rawPassword, extractHash(id, encodedPassword));
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.isEmpty()) {
+            return false;
+        }
+        String id = extractId(encodedPassword);
+        if (!currentId.equals(id)) {
+            return true;
+        }
+        String hash = extractHash(id, encodedPassword);
+        switch (algorithm) {
+            case BCRYPT:
+                return bcryptCost(hash) != cost;
+            case ARGON2:
+                return !hash.contains("m=" + argon2MemoryKb + ",t=" + cost + ",");
+            default:
+                return false;
+        }
+    }
+
+    private PasswordEncoder matcherFor(String id) {
+        if (BCRYPT_ID.equals(id)) {
+            return bcryptMatcher;
+        }
+        if (ARGON2_ID.equals(id)) {
+            return argon2Matcher;
+        }
+        if (id.startsWith(PBKDF2_ID)) {
+            try {
+                int iterations = Integer.parseInt(id.substring(PBKDF2_ID.length()));
+                return pbkdf2Matchers.computeIfAbsent(iterations, AdaptivePasswordEncoder::pbkdf2);
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        return null;
+    }
+
+    private static String extractId(String encodedPassword) {
+        if (!encodedPassword.startsWith(PREFIX)) {
+            return null;
+        }
+        int end = encodedPassword.indexOf(SUFFIX);
+        return end < 0 ? null : encodedPassword.substring(PREFIX.length(), end);
+    }
+
+    private static String extractHash(String id, String encodedPassword) {
+        return id == null ? encodedPassword : encodedPassword.substring(id.length() + PREFIX.length() + SUFFIX.length());
+    }
+
+    /**
+     * Reads the cost of a modular crypt BCrypt hash such as {@code $2a$10$...}.
+     */
+    private static int bcryptCost(String hash) {
+        try {
+            return Integer.parseInt(hash.substring(4, 6));
+        } catch (RuntimeException e) {
+            return -1;
+        }
+    }
+
+    private static PasswordEncoder pbkdf2(int iterations) {
+        var encoder = new Pbkdf2PasswordEncoder("", PBKDF2_SALT_LENGTH, iterations, PBKDF2_HASH_WIDTH);
+        encoder.setAlgorithm(Pbkdf2PasswordEncoder.SecretKeyFactoryAlgorithm.PBKDF2WithHmacSHA256);
+        return encoder;
+    }
+
+    private static PasswordEncoder argon2(int memoryKb, int iterations) {
+        return new Argon2PasswordEncoder(ARGON2_SALT_LENGTH, ARGON2_HASH_LENGTH, ARGON2_PARALLELISM, memoryKb, iterations);
+    }
+}
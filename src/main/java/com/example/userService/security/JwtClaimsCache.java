@@ -0,0 +1,92 @@
+package com.example.userService.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.jsonwebtoken.Claims;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded, expiry-aware cache of already verified JWT claims.
+ * <p>
+ * Entries are keyed by the SHA-256 digest of the compact token, so raw tokens are never retained,
+ * and each entry lives only until the {@code exp} claim of its token. Backed by Caffeine, so a full cache
+ * evicts the entries least likely to be used again in amortized constant time, without scanning.
+ */
+class JwtClaimsCache {
+
+    private final Cache<String, Claims> entries;
+
+    JwtClaimsCache(int maxSize) {
+        this.entries = maxSize > 0
+                ? Caffeine.newBuilder().maximumSize(maxSize).expireAfter(new UntilExpiration()).build()
+                : null;
+    }
+
+    /**
+     * Returns the cached claims for a token, provided they have not expired yet.
+     *
+     * @param token the compact JWT
+     * @return the verified claims, or {@code null} on a miss or an expired entry
+     */
+    Claims get(String token) {
+        return entries != null ? entries.getIfPresent(digest(token)) : null;
+    }
+
+    /**
+     * Stores verified claims until the token's {@code exp}. Tokens without expiration are not cached.
+     *
+     * @param token  the compact JWT
+     * @param claims the claims obtained after verifying the signature
+     */
+    void put(String token, Claims claims) {
+        if (entries != null && claims.getExpiration() != null) {
+            entries.put(digest(token), claims);
+        }
+    }
+
+    /**
+     * Drops every entry, so each token is verified again against the current keys.
+     */
+    void invalidateAll() {
+        if (entries != null) {
+            entries.invalidateAll();
+        }
+    }
+
+    private static String digest(String token) {
+        try {
+            var hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.US_ASCII));
+            return Base64.getEncoder().withoutPadding().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Expires each entry at the {@code exp} claim of its token.
+     */
+    private static final class UntilExpiration implements Expiry<String, Claims> {
+
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            long remainingMs = claims.getExpiration().getTime() - System.currentTimeMillis();
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMs));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
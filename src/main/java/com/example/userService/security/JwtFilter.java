@@ -1,7 +1,10 @@
 package com.example.userService.security;
 
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
@@ -11,6 +14,9 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 /**
  * Custom security filter that intercepts each HTTP request once to validate the JWT token.
@@ -18,8 +24,11 @@ import java.io.IOException;
  * This filter:
  * <ul>
  *     <li>Extracts the token from the Authorization header.</li>
- *     <li>Validates the token using {@link JwtUtil}.</li>
- *     <li>If valid, sets the authenticated user in the {@link SecurityContextHolder}.</li>
+ *     <li>Validates the token using {@link JwtUtil} and rejects tokens found in the {@link TokenRevocationStore}.</li>
+ *     <li>If valid, sets the authenticated user in the {@link SecurityContextHolder}, with the authorities listed
+ *     in the {@value JwtUtil#AUTHORITIES_CLAIM} claim.</li>
+ *     <li>Exposes the verified claims as the {@link #CLAIMS_ATTRIBUTE} request attribute,
+ *     so later layers do not need to parse the token again.</li>
  * </ul>
  * <p>
  * The filter is executed once per request by extending {@link OncePerRequestFilter}.
@@ -28,9 +37,15 @@ import java.io.IOException;
 @Component
 public class JwtFilter extends OncePerRequestFilter {
 
+    /** Request attribute holding the verified {@link io.jsonwebtoken.Claims} of the current request. */
+    public static final String CLAIMS_ATTRIBUTE = JwtFilter.class.getName() + ".CLAIMS";
+
     /** Utility for validating and extracting data from JWT tokens. */
     private final JwtUtil jwtUtil;
 
+    /** Denylist of tokens revoked before their expiration. */
+    private final TokenRevocationStore revocationStore;
+
     /**
      * Filters incoming HTTP requests and performs JWT validation.
      *
@@ -50,16 +65,28 @@ public class JwtFilter extends OncePerRequestFilter {
         if (authHeader != null && authHeader.startsWith("Bearer ")) {
             String token = authHeader.substring(7);
 
-            if (jwtUtil.isValidToken(token)) {
-                String username = jwtUtil.getUsernameFromToken(token);
+            jwtUtil.parseClaims(token)
+                    .filter(claims -> !revocationStore.isRevoked(claims))
+                    .ifPresent(claims -> {
+                        UsernamePasswordAuthenticationToken authentication =
+                                new UsernamePasswordAuthenticationToken(claims.getSubject(), null, authoritiesOf(claims));
 
-                UsernamePasswordAuthenticationToken authentication =
-                        new UsernamePasswordAuthenticationToken(username, null, null);
-
-                SecurityContextHolder.getContext().setAuthentication(authentication);
-            }
+                        SecurityContextHolder.getContext().setAuthentication(authentication);
+                        request.setAttribute(CLAIMS_ATTRIBUTE, claims);
+                    });
         }
 
         filterChain.doFilter(request, response);
     }
+
+    private static List<GrantedAuthority> authoritiesOf(Claims claims) {
+        var authorities = new ArrayList<GrantedAuthority>();
+        var granted = claims.get(JwtUtil.AUTHORITIES_CLAIM);
+        if (granted instanceof Collection) {
+            for (var authority : (Collection<?>) granted) {
+                authorities.add(new SimpleGrantedAuthority(String.valueOf(authority)));
+            }
+        }
+        return authorities;
+    }
 }
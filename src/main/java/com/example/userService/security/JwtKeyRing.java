@@ -0,0 +1,327 @@
+package com.example.userService.security;
+
+import io.jsonwebtoken.SignatureAlgorithm;
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigInteger;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.security.PublicKey;
+import java.security.cert.Certificate;
+import java.security.cert.X509Certificate;
+import java.security.interfaces.ECPublicKey;
+import java.security.interfaces.RSAPublicKey;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory ring of asymmetric keys used to sign and verify tokens, loaded from a local keystore.
+ * <p>
+ * Every entry of the keystore {@code jwt.keystore.path} is identified by its alias, which is sent as the
+ * {@code kid} header of the tokens it signs:
+ * <ul>
+ *     <li>Private key entries can sign. The active one is {@code jwt.keystore.active-alias} or, when that is
+ *     not set, the entry whose certificate became valid most recently. Entries whose certificate is not valid yet
+ *     are published and accepted, but do not sign, so a new key reaches the JWKS caches of other services
+ *     before the first token signed with it.</li>
+ *     <li>Certificate-only entries are kept to verify tokens signed with retired keys until they expire.</li>
+ * </ul>
+ * The keystore is checked every {@code jwt.keystore.reload-interval-ms} and reloaded when it changes, so keys
+ * are rotated by editing the file. A keystore that cannot be read, or that no longer has a key able to sign,
+ * keeps the previous keys in use.
+ * When no keystore is configured the ring is empty and tokens are signed with the shared HMAC secret.
+ */
+@Slf4j
+@Component
+public class JwtKeyRing {
+
+    /** PKCS12 or JKS keystore with the signing keys; empty to sign with the HMAC secret. */
+    @Value("${jwt.keystore.path:}")
+    private String path;
+
+    @Value("${jwt.keystore.type:PKCS12}")
+    private String type;
+
+    @Value("${jwt.keystore.password:}")
+    private String password;
+
+    /** Alias of the signing key; empty to pick the newest valid key. */
+    @Value("${jwt.keystore.active-alias:}")
+    private String activeAlias;
+
+    @Value("${jwt.keystore.reload-interval-ms:60000}")
+    private long reloadIntervalMs;
+
+    /** Keys of the last successful load, replaced as a whole on reload. */
+    private volatile Keys keys = Keys.EMPTY;
+
+    /** Key currently used to sign, or {@code null} to sign with the HMAC secret. */
+    private volatile SigningKey signingKey;
+
+    private Instant loadedVersion;
+
+    /** Called after new keys replace the previous ones. */
+    private final List<Runnable> reloadListeners = new CopyOnWriteArrayList<>();
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * A private key able to sign, with its {@code kid} and the JWS algorithm matching the key.
+     */
+    @Getter
+    @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
+    public static final class SigningKey {
+        private final String keyId;
+        private final PrivateKey privateKey;
+        private final SignatureAlgorithm algorithm;
+        private final Instant validFrom;
+    }
+
+    /**
+     * Immutable snapshot of a loaded keystore.
+     */
+    private static final class Keys {
+        static final Keys EMPTY = new Keys(Map.of(), List.of(), Map.of("keys", List.of()));
+
+        final Map<String, PublicKey> verificationKeys;
+        final List<SigningKey> signingKeys;
+        final Map<String, Object> jwks;
+
+        Keys(Map<String, PublicKey> verificationKeys, List<SigningKey> signingKeys, Map<String, Object> jwks) {
+            this.verificationKeys = verificationKeys;
+            this.signingKeys = signingKeys;
+            this.jwks = jwks;
+        }
+    }
+
+    /**
+     * Loads the keystore and schedules its reload.
+     */
+    @PostConstruct
+    public void init() throws IOException, GeneralSecurityException {
+        if (path.isBlank()) {
+            log.info("No JWT keystore configured, tokens are signed with the HMAC secret");
+            return;
+        }
+        reload();
+        scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("jwt-key-ring-"));
+        scheduler.scheduleWithFixedDelay(this::reloadQuietly, reloadIntervalMs, reloadIntervalMs, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+        }
+    }
+
+    /**
+     * Reads the keystore again if it was modified since the last load, then selects the signing key,
+     * which may change without a new file once a pre-published key becomes valid.
+     *
+     * @throws IllegalStateException if no key can sign now, such as when the active key was removed from the
+     *                               file; the keys and the signing key of the last successful load stay in use
+     */
+    public void reload() throws IOException, GeneralSecurityException {
+        var file = Path.of(path);
+        var version = Files.getLastModifiedTime(file).toInstant();
+        var loaded = version.equals(loadedVersion) ? keys : load(file);
+        var selected = selectSigningKey(loaded.signingKeys, Instant.now());
+        if (selected == null) {
+            throw new IllegalStateException("JWT keystore " + path + " has no private key that can sign now");
+        }
+        if (loaded != keys) {
+            keys = loaded;
+            loadedVersion = version;
+            log.info("Loaded JWT keys {} from {}", keys.verificationKeys.keySet(), file);
+            reloadListeners.forEach(Runnable::run);
+        }
+        if (signingKey == null || !selected.getKeyId().equals(signingKey.getKeyId())) {
+            log.info("Signing tokens with key {}", selected.getKeyId());
+        }
+        signingKey = selected;
+    }
+
+    /**
+     * Registers a callback run each time new keys are loaded, such as to forget what was verified with the
+     * previous ones.
+     *
+     * @param listener the callback
+     */
+    public void addReloadListener(Runnable listener) {
+        reloadListeners.add(listener);
+    }
+
+    /**
+     * @return the key to sign new tokens with, or {@code null} when tokens are signed with the HMAC secret
+     */
+    public SigningKey getSigningKey() {
+        return signingKey;
+    }
+
+    /**
+     * Looks up the public key of a {@code kid} with a single hash lookup.
+     *
+     * @param keyId the {@code kid} header of a token
+     * @return the public key, or {@code null} if the key is unknown
+     */
+    public PublicKey getVerificationKey(String keyId) {
+        return keys.verificationKeys.get(keyId);
+    }
+
+    /**
+     * @return the public keys as a JSON Web Key Set, built once per load
+     */
+    public Map<String, Object> getJwks() {
+        return keys.jwks;
+    }
+
+    private void reloadQuietly() {
+        try {
+            reload();
+        } catch (IOException | GeneralSecurityException | RuntimeException e) {
+            log.error("Could not reload JWT keystore {}, keeping the current keys: {}", path, e.getMessage());
+        }
+    }
+
+    private Keys load(Path file) throws IOException, GeneralSecurityException {
+        var keyStore = KeyStore.getInstance(type);
+        var secret = password.toCharArray();
+        try (InputStream input = Files.newInputStream(file)) {
+            keyStore.load(input, secret);
+        }
+        var verificationKeys = new HashMap<String, PublicKey>();
+        var signingKeys = new ArrayList<SigningKey>();
+        var jwks = new ArrayList<Map<String, Object>>();
+        for (var alias : Collections.list(keyStore.aliases())) {
+            var certificate = keyStore.getCertificate(alias);
+            if (certificate == null) {
+                continue;
+            }
+            var publicKey = certificate.getPublicKey();
+            var algorithm = algorithmFor(publicKey);
+            if (algorithm == null) {
+                log.warn("Skipping JWT key {}: unsupported {} key", alias, publicKey.getAlgorithm());
+                continue;
+            }
+            verificationKeys.put(alias, publicKey);
+            jwks.add(toJwk(alias, publicKey, algorithm));
+            if (keyStore.isKeyEntry(alias)) {
+                var privateKey = (PrivateKey) keyStore.getKey(alias, secret);
+                signingKeys.add(new SigningKey(alias, privateKey, algorithm, validFrom(certificate)));
+            }
+        }
+        var jwkSet = new LinkedHashMap<String, Object>();
+        jwkSet.put("keys", List.copyOf(jwks));
+        return new Keys(Map.copyOf(verificationKeys), List.copyOf(signingKeys), Collections.unmodifiableMap(jwkSet));
+    }
+
+    private SigningKey selectSigningKey(List<SigningKey> candidates, Instant now) {
+        if (!activeAlias.isBlank()) {
+            return candidates.stream()
+                    .filter(key -> key.getKeyId().equals(activeAlias))
+                    .findFirst()
+                    .orElse(null);
+        }
+        return candidates.stream()
+                .filter(key -> !key.getValidFrom().isAfter(now))
+                .max(Comparator.comparing(SigningKey::getValidFrom).thenComparing(SigningKey::getKeyId))
+                .orElse(null);
+    }
+
+    /**
+     * Picks the JWS algorithm of a key: ECDSA with the hash matching the curve, or RS256 for RSA keys.
+     *
+     * @return the algorithm, or {@code null} for unsupported keys
+     */
+    private static SignatureAlgorithm algorithmFor(PublicKey publicKey) {
+        if (publicKey instanceof ECPublicKey) {
+            switch (((ECPublicKey) publicKey).getParams().getCurve().getField().getFieldSize()) {
+                case 256:
+                    return SignatureAlgorithm.ES256;
+                case 384:
+                    return SignatureAlgorithm.ES384;
+                case 521:
+                    return SignatureAlgorithm.ES512;
+                default:
+                    return null;
+            }
+        }
+        if (publicKey instanceof RSAPublicKey && ((RSAPublicKey) publicKey).getModulus().bitLength() >= 2048) {
+            return SignatureAlgorithm.RS256;
+        }
+        return null;
+    }
+
+    private static Instant validFrom(Certificate certificate) {
+        return certificate instanceof X509Certificate
+                ? ((X509Certificate) certificate).getNotBefore().toInstant()
+                : Instant.EPOCH;
+    }
+
+    /**
+     * Encodes a public key as a JSON Web Key (RFC 7517/7518).
+     */
+    private static Map<String, Object> toJwk(String keyId, PublicKey publicKey, SignatureAlgorithm algorithm) {
+        var jwk = new LinkedHashMap<String, Object>();
+        jwk.put("kid", keyId);
+        jwk.put("use", "sig");
+        jwk.put("alg", algorithm.getValue());
+        if (publicKey instanceof ECPublicKey) {
+            var ecKey = (ECPublicKey) publicKey;
+            int fieldSize = ecKey.getParams().getCurve().getField().getFieldSize();
+            int length = (fieldSize + 7) / 8;
+            jwk.put("kty", "EC");
+            jwk.put("crv", fieldSize == 521 ? "P-521" : "P-" + fieldSize);
+            jwk.put("x", base64Url(ecKey.getW().getAffineX(), length));
+            jwk.put("y", base64Url(ecKey.getW().getAffineY(), length));
+        } else if (publicKey instanceof RSAPublicKey) {
+            var rsaKey = (RSAPublicKey) publicKey;
+            jwk.put("kty", "RSA");
+            jwk.put("n", base64Url(rsaKey.getModulus(), 0));
+            jwk.put("e", base64Url(rsaKey.getPublicExponent(), 0));
+        }
+        return Collections.unmodifiableMap(jwk);
+    }
+
+    /**
+     * Base64url-encodes an unsigned big-endian integer, left-padded with zeros to {@code length} bytes.
+     */
+    private static String base64Url(BigInteger value, int length) {
+        var bytes = value.toByteArray();
+        if (bytes.length > 1 && bytes[0] == 0) {
+            bytes = Arrays.copyOfRange(bytes, 1, bytes.length);
+        }
+        if (bytes.length < length) {
+            var padded = new byte[length];
+            System.arraycopy(bytes, 0, padded, length - bytes.length, bytes.length);
+            bytes = padded;
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
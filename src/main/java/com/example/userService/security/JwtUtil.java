@@ -1,39 +1,81 @@
 package com.example.userService.security;
 
+import com.example.userService.entity.User;
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
-import io.jsonwebtoken.Jws;
+import io.jsonwebtoken.JwsHeader;
 import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.SigningKeyResolverAdapter;
 import io.jsonwebtoken.UnsupportedJwtException;
+import io.jsonwebtoken.io.Serializer;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import javax.annotation.PostConstruct;
 import javax.crypto.SecretKey;
+import java.security.Key;
 import java.time.Instant;
 import java.util.Base64;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Utility class for managing JSON Web Tokens (JWT).
  * <p>
  * This class is responsible for:
  * <ul>
- *     <li>Generating JWT tokens with HMAC-SHA256 signature.</li>
+ *     <li>Generating JWT tokens with a unique {@code jti}, so they can be revoked one by one. Tokens are signed
+ *     with the active key of the {@link JwtKeyRing} and carry its {@code kid}, or with HMAC-SHA256 and the shared
+ *     secret when no keystore is configured. Tokens of the emails listed in {@code security.admin.emails} carry
+ *     the {@value #ADMIN_AUTHORITY} authority in their {@value #AUTHORITIES_CLAIM} claim.</li>
  *     <li>Extracting claims such as the user's email from tokens.</li>
- *     <li>Validating tokens (checking for expiration, integrity, format, etc.).</li>
+ *     <li>Validating tokens (checking for expiration, integrity, format, etc.). The verification key is picked by
+ *     the {@code kid} header with one map lookup; tokens without {@code kid} are verified with the HMAC secret,
+ *     unless {@code jwt.legacy-hmac.enabled} is {@code false}, in which case they are rejected.</li>
+ *     <li>Caching verified claims until the token expires, so a token is only verified once. The cache is
+ *     cleared whenever the {@link JwtKeyRing} loads new keys, so removed keys stop being trusted at once.</li>
+ *     <li>Timing verifications as {@code jwt.verify}, tagged with {@code result}: {@code cached}, {@code verified}
+ *     or {@code rejected}.</li>
  * </ul>
- * Requires the configuration properties {@code jwt.secret} and {@code jwt.expiration}.
+ * Requires the configuration properties {@code jwt.secret} and {@code jwt.expiration};
+ * the claims cache capacity is set with {@code jwt.cache.max-size}.
  */
 @Slf4j
 @Component
+@RequiredArgsConstructor
 public class JwtUtil {
 
+    /** Claim holding the refresh-token session an access token was issued for. */
+    public static final String SESSION_CLAIM = "sid";
+
+    /** Claim holding the authorities granted to the subject of a token. */
+    public static final String AUTHORITIES_CLAIM = "authorities";
+
+    /** Authority required by the back-office endpoints. */
+    public static final String ADMIN_AUTHORITY = "ADMIN";
+
+    /** Asymmetric signing and verification keys. */
+    private final JwtKeyRing keyRing;
+
+    /** Registry where verification times are published. */
+    private final MeterRegistry meterRegistry;
+
     /** Base64-encoded secret key from application properties. */
     @Value("${jwt.secret}")
     private String secret;
@@ -42,38 +84,157 @@ public class JwtUtil {
     @Value("${jwt.expiration}")
     private long expiration;
 
+    /** Maximum number of verified tokens kept in the claims cache; {@code 0} disables caching. */
+    @Value("${jwt.cache.max-size:10000}")
+    private int cacheMaxSize;
+
+    /**
+     * Whether tokens without {@code kid} are still signed and verified with the HMAC secret. Turn it off once every
+     * instance signs with the key ring and the last HMAC token has expired.
+     */
+    @Value("${jwt.legacy-hmac.enabled:true}")
+    private boolean legacyHmacEnabled;
+
+    /** Emails whose tokens are granted {@value #ADMIN_AUTHORITY}. */
+    @Value("${security.admin.emails:}")
+    private String[] adminEmails;
+
+    /** Normalized {@link #adminEmails}. */
+    private Set<String> admins;
+
     /** Decoded secret key used to sign and verify tokens. */
     private SecretKey secretKey;
 
+    /** Immutable, thread-safe parser shared by every verification. */
+    private JwtParser parser;
+
+    /** JSON serializer shared by every token builder, resolved once instead of on each call. */
+    private Serializer<Map<String, ?>> serializer;
+
+    /** Verified claims keyed by token digest, valid until each token's expiration. */
+    private JwtClaimsCache claimsCache;
+
+    private Timer cachedTimer;
+
+    private Timer verifiedTimer;
+
+    private Timer rejectedTimer;
+
 
     /**
-     * Initializes the secret key after the component is constructed.
+     * Initializes the secret key, the shared parser and the token serializer after the component is constructed.
      * <p>This method is called automatically after property injection using {@code @PostConstruct}.</p>
      */
     @PostConstruct
     public void init() {
+        if (!legacyHmacEnabled && keyRing.getSigningKey() == null) {
+            throw new IllegalStateException("jwt.legacy-hmac.enabled=false requires a signing key in jwt.keystore");
+        }
         byte[] decodedKey = Base64.getDecoder().decode(secret);
         secretKey = Keys.hmacShaKeyFor(decodedKey);
+        parser = Jwts.parserBuilder()
+                .setSigningKeyResolver(new SigningKeyResolverAdapter() {
+                    // jjwt 0.11 declares the raw JwsHeader, so an override cannot narrow it to JwsHeader<?>.
+                    @Override
+                    @SuppressWarnings("rawtypes")
+                    public Key resolveSigningKey(JwsHeader header, Claims claims) {
+                        return resolveKey(header);
+                    }
+                })
+                .build();
+        serializer = loadSerializer();
+        admins = new HashSet<>();
+        if (adminEmails != null) {
+            for (var email : adminEmails) {
+                if (!email.isBlank()) {
+                    admins.add(User.normalizeEmail(email));
+                }
+            }
+        }
+        claimsCache = new JwtClaimsCache(cacheMaxSize);
+        keyRing.addReloadListener(claimsCache::invalidateAll);
+        cachedTimer = verifyTimer("cached");
+        verifiedTimer = verifyTimer("verified");
+        rejectedTimer = verifyTimer("rejected");
     }
 
     /**
      * Generates a JWT token for a given user email.
      *
      * @param email the user's email to set as the subject of the token
-     * @return a signed JWT token string with issued and expiration dates
+     * @return a signed JWT token string with id, issued and expiration dates
      */
     public String generateToken(String email) {
+        return generateToken(email, null);
+    }
+
+    /**
+     * Generates a JWT token for a given user email within a refresh-token session.
+     *
+     * @param email     the user's email to set as the subject of the token
+     * @param sessionId the session set as the {@value #SESSION_CLAIM} claim, or {@code null} for none
+     * @return a signed JWT token string with id, issued and expiration dates
+     */
+    public String generateToken(String email, String sessionId) {
         var now = Instant.now();
         var expiry = now.plusMillis(expiration);
 
-        return Jwts.builder()
+        var builder = Jwts.builder()
+                .setId(UUID.randomUUID().toString())
                 .setSubject(email)
                 .setIssuedAt(Date.from(now))
-                .setExpiration(Date.from(expiry))
-                .signWith(secretKey, SignatureAlgorithm.HS256)
+                .setExpiration(Date.from(expiry));
+        if (sessionId != null) {
+            builder.claim(SESSION_CLAIM, sessionId);
+        }
+        if (email != null && admins.contains(User.normalizeEmail(email))) {
+            builder.claim(AUTHORITIES_CLAIM, List.of(ADMIN_AUTHORITY));
+        }
+        var signingKey = keyRing.getSigningKey();
+        if (signingKey != null) {
+            builder.setHeaderParam(JwsHeader.KEY_ID, signingKey.getKeyId())
+                    .signWith(signingKey.getPrivateKey(), signingKey.getAlgorithm());
+        } else {
+            builder.signWith(secretKey, SignatureAlgorithm.HS256);
+        }
+        return builder
+                .serializeToJsonWith(serializer)
                 .compact();
     }
 
+    /**
+     * @return the lifetime of issued tokens in milliseconds
+     */
+    public long getExpiration() {
+        return expiration;
+    }
+
+    /**
+     * Verifies a JWT token and returns its claims.
+     * <p>
+     * The signature is only checked the first time a token is seen; subsequent calls are served
+     * from the claims cache until the token's {@code exp} is reached.
+     *
+     * @param token the JWT token
+     * @return the verified claims, or empty if the token is invalid or expired
+     */
+    public Optional<Claims> parseClaims(String token) {
+        try {
+            return Optional.of(verify(token));
+        } catch (ExpiredJwtException e) {
+            log.info("Expired token: " + e.getMessage());
+        } catch (UnsupportedJwtException e) {
+            log.info("Unsupported Jwt  : " + e.getMessage());
+        } catch (MalformedJwtException e) {
+            log.info("Malformed Jwt: " + e.getMessage());
+        } catch (SecurityException | SignatureException e) {
+            log.info("Invalid Sign: " + e.getMessage());
+        } catch (IllegalArgumentException e) {
+            log.info("Illegal Argument: " + e.getMessage());
+        }
+        return Optional.empty();
+    }
+
     /**
      * Extracts the username (email) from a JWT token.
      *
@@ -82,12 +243,18 @@ public class JwtUtil {
      * @throws JwtException if the token is invalid or parsing fails
      */
     public String getUsernameFromToken(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(secretKey)
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
+        return verify(token).getSubject();
+    }
+
+    /**
+     * Extracts every claim from a JWT token.
+     *
+     * @param token the JWT token
+     * @return the verified claims
+     * @throws JwtException if the token is invalid or parsing fails
+     */
+    public Claims getClaimsFromToken(String token) {
+        return verify(token);
     }
 
     /**
@@ -97,25 +264,80 @@ public class JwtUtil {
      * @return {@code true} if the token is valid; {@code false} otherwise
      */
     public boolean isValidToken(String token) {
+        return parseClaims(token).isPresent();
+    }
+
+    /**
+     * Returns the cached claims for a token or verifies it and caches the result.
+     *
+     * @param token the JWT token
+     * @return the verified claims
+     * @throws JwtException if the token is invalid or parsing fails
+     */
+    private Claims verify(String token) {
+        if (token == null || token.isEmpty()) {
+            throw new IllegalArgumentException("JWT String argument cannot be null or empty.");
+        }
+        long start = System.nanoTime();
+        var cached = claimsCache.get(token);
+        if (cached != null) {
+            cachedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return cached;
+        }
+        Claims claims;
         try {
-            Jws<Claims> claimsJws = Jwts.parserBuilder()
-                    .setSigningKey(secretKey)
-                    .build()
-                    .parseClaimsJws(token);
+            claims = parser.parseClaimsJws(token)
+                    .getBody();
+        } catch (RuntimeException e) {
+            rejectedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+        claimsCache.put(token, claims);
+        verifiedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return claims;
+    }
 
-            return claimsJws != null;
-        } catch (ExpiredJwtException e) {
-            log.info("Expired token: " + e.getMessage());
-        } catch (UnsupportedJwtException e) {
-            log.info("Unsupported Jwt  : " + e.getMessage());
-        } catch (MalformedJwtException e) {
-            log.info("Malformed Jwt: " + e.getMessage());
-        } catch (SecurityException | SignatureException e) {
-            log.info("Invalid Sign: " + e.getMessage());
-        } catch (IllegalArgumentException e) {
-            log.info("Illegal Argument: " + e.getMessage());
+    private Timer verifyTimer(String result) {
+        return Timer.builder("jwt.verify")
+                .description("Time spent verifying a token")
+                .tag("result", result)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+    }
+
+    /**
+     * Picks the key that verifies a token from its header.
+     *
+     * @param header the token header
+     * @return the public key of the {@code kid}, or the HMAC secret when there is no {@code kid}
+     * @throws SignatureException if the {@code kid} is not in the key ring, or is missing while the legacy HMAC
+     *                            path is disabled
+     */
+    private Key resolveKey(JwsHeader<?> header) {
+        var keyId = header.getKeyId();
+        if (keyId == null) {
+            if (!legacyHmacEnabled) {
+                throw new SignatureException("Token without signing key id");
+            }
+            return secretKey;
+        }
+        var key = keyRing.getVerificationKey(keyId);
+        if (key == null) {
+            throw new SignatureException("Unknown signing key id " + keyId);
         }
-        return false;
+        return key;
+    }
+
+    /**
+     * Looks up the JSON serializer provided by the jjwt runtime.
+     *
+     * @return the first available {@link Serializer}
+     */
+    @SuppressWarnings("unchecked")
+    private static Serializer<Map<String, ?>> loadSerializer() {
+        return ServiceLoader.load(Serializer.class).findFirst()
+                .orElseThrow(() -> new IllegalStateException("No JWT JSON serializer found on the classpath"));
     }
 
 }
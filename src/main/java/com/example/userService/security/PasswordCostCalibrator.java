@@ -0,0 +1,109 @@
+package com.example.userService.security;
+
+import com.example.userService.security.AdaptivePasswordEncoder.Algorithm;
+import lombok.experimental.UtilityClass;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/**
+ * Finds the hashing cost that fits a latency budget on the current machine.
+ * <p>
+ * A cheap reference setting is measured once and the result is extrapolated: BCrypt doubles its
+ * work with every strength step, while PBKDF2 and Argon2 scale linearly with their iterations.
+ * The result never goes below a minimum considered safe for each algorithm.
+ * <p>
+ * Every instance must hash with the same cost, otherwise each one reports the hashes of the others as outdated.
+ * The cost is therefore measured once, offline, on the hardware the service runs on, with
+ * {@code ./gradlew calibratePasswordCost}, and pinned under {@code security.password}.
+ */
+@Slf4j
+@UtilityClass
+public class PasswordCostCalibrator {
+
+    private static final int BCRYPT_REFERENCE = 8;
+    private static final int BCRYPT_MIN = 8;
+    private static final int BCRYPT_MAX = 31;
+    private static final int PBKDF2_REFERENCE = 10_000;
+    private static final int PBKDF2_MIN = 100_000;
+    private static final int ARGON2_REFERENCE = 1;
+    private static final int ARGON2_MIN = 1;
+    private static final int SAMPLES = 3;
+    private static final String SAMPLE_PASSWORD = "calibrationPassword1";
+
+    /**
+     * Calculates the cost whose hashing time is closest to, without exceeding, the budget.
+     *
+     * @param algorithm      the algorithm to calibrate
+     * @param budget         the target time per hash
+     * @param argon2MemoryKb Argon2 memory in KiB, kept fixed while calibrating
+     * @return the calibrated cost for the algorithm
+     */
+    public static int calibrate(Algorithm algorithm, Duration budget, int argon2MemoryKb) {
+        int cost;
+        switch (algorithm) {
+            case BCRYPT: {
+                long reference = measure(AdaptivePasswordEncoder.encoderFor(algorithm, BCRYPT_REFERENCE, argon2MemoryKb));
+                int steps = (int) Math.floor(Math.log((double) budget.toNanos() / reference) / Math.log(2));
+                cost = Math.min(BCRYPT_MAX, Math.max(BCRYPT_MIN, BCRYPT_REFERENCE + steps));
+                break;
+            }
+            case PBKDF2: {
+                long reference = measure(AdaptivePasswordEncoder.encoderFor(algorithm, PBKDF2_REFERENCE, argon2MemoryKb));
+                cost = Math.max(PBKDF2_MIN, (int) Math.min(Integer.MAX_VALUE, PBKDF2_REFERENCE * budget.toNanos() / reference));
+                break;
+            }
+            case ARGON2: {
+                long reference = measure(AdaptivePasswordEncoder.encoderFor(algorithm, ARGON2_REFERENCE, argon2MemoryKb));
+                cost = Math.max(ARGON2_MIN, (int) Math.min(Integer.MAX_VALUE, ARGON2_REFERENCE * budget.toNanos() / reference));
+                break;
+            }
+            default:
+                throw new IllegalArgumentException("Unsupported algorithm " + algorithm);
+        }
+        log.info("Calibrated {} cost to {} for a budget of {} ms", algorithm, cost, budget.toMillis());
+        return cost;
+    }
+
+    /**
+     * Prints the calibrated cost as the property to pin.
+     *
+     * @param args the algorithm (default {@code bcrypt}), the target time per hash in milliseconds (default 50) and
+     *             the Argon2 memory in KiB (default 4096)
+     */
+    public static void main(String[] args) {
+        var algorithm = Algorithm.from(args.length > 0 ? args[0] : "bcrypt");
+        var budget = Duration.ofMillis(args.length > 1 ? Long.parseLong(args[1]) : 50);
+        int argon2MemoryKb = args.length > 2 ? Integer.parseInt(args[2]) : 4096;
+        int cost = calibrate(algorithm, budget, argon2MemoryKb);
+        System.out.println("security.password." + costProperty(algorithm) + "=" + cost);
+    }
+
+    private static String costProperty(Algorithm algorithm) {
+        switch (algorithm) {
+            case PBKDF2:
+                return "pbkdf2.iterations";
+            case ARGON2:
+                return "argon2.iterations";
+            default:
+                return "bcrypt.strength";
+        }
+    }
+
+    /**
+     * Returns the median time of a few hashes, after one warm-up round.
+     */
+    private static long measure(PasswordEncoder encoder) {
+        encoder.encode(SAMPLE_PASSWORD);
+        long[] samples = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            long start = System.nanoTime();
+            encoder.encode(SAMPLE_PASSWORD);
+            samples[i] = Math.max(1, System.nanoTime() - start);
+        }
+        Arrays.sort(samples);
+        return samples[SAMPLES / 2];
+    }
+}
@@ -0,0 +1,421 @@
+package com.example.userService.security;
+
+import com.example.userService.dto.ErrorResponse;
+import com.example.userService.entity.User;
+import com.example.userService.service.UserMetrics;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.servlet.FilterChain;
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+import javax.servlet.http.HttpServletResponse;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rejects login, sign-in and sign-up floods with a 429 before any user is looked up or password hashed.
+ * <p>
+ * Each endpoint has two limits, configured under {@code security.rate-limit.<endpoint>}:
+ * <ul>
+ *     <li>{@code per-client}, keyed by the remote address, checked before any token is parsed. Behind a proxy,
+ *     enable {@code server.forward-headers-strategy} so that it is the client's address.</li>
+ *     <li>{@code per-account}, keyed by the normalized account the request targets. For sign-up and sign-in, it
+ *     is the {@code email} of the body, read from its first {@value #MAX_PEEKED_BODY_BYTES} bytes and replayed to
+ *     the controller; on sign-in it caps password guesses against one account. For login, it is the subject of the bearer token once {@link JwtFilter} has verified it, checked
+ *     by {@link #loginAccountFilter()}, so a forged token cannot spend the budget of another account.</li>
+ * </ul>
+ * A rejected request gets a {@code Retry-After} header with the seconds until its bucket has a token again and is
+ * counted as {@code user.throttled}. Idle buckets are evicted every {@code security.rate-limit.eviction-interval-ms}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RateLimitFilter extends OncePerRequestFilter {
+
+    public static final String PER_CLIENT = "client";
+    public static final String PER_ACCOUNT = "account";
+
+    private static final int MAX_PEEKED_BODY_BYTES = 4096;
+    private static final String DEFAULT_MESSAGE = "Too many requests, please retry later";
+
+    private final UserMetrics userMetrics;
+
+    private final MeterRegistry meterRegistry;
+
+    private final ObjectMapper objectMapper;
+
+    @Value("${security.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${security.rate-limit.eviction-interval-ms:60000}")
+    private long evictionIntervalMs;
+
+    @Value("${security.rate-limit.login.per-client.capacity:20}")
+    private int loginPerClientCapacity;
+
+    @Value("${security.rate-limit.login.per-client.per-second:10}")
+    private double loginPerClientRate;
+
+    @Value("${security.rate-limit.login.per-account.capacity:10}")
+    private int loginPerAccountCapacity;
+
+    @Value("${security.rate-limit.login.per-account.per-second:1}")
+    private double loginPerAccountRate;
+
+    @Value("${security.rate-limit.sign-up.per-client.capacity:10}")
+    private int signUpPerClientCapacity;
+
+    @Value("${security.rate-limit.sign-up.per-client.per-second:1}")
+    private double signUpPerClientRate;
+
+    @Value("${security.rate-limit.sign-up.per-account.capacity:3}")
+    private int signUpPerAccountCapacity;
+
+    @Value("${security.rate-limit.sign-up.per-account.per-second:0.1}")
+    private double signUpPerAccountRate;
+
+    @Value("${security.rate-limit.sign-in.per-client.capacity:20}")
+    private int signInPerClientCapacity;
+
+    @Value("${security.rate-limit.sign-in.per-client.per-second:1}")
+    private double signInPerClientRate;
+
+    @Value("${security.rate-limit.sign-in.per-account.capacity:5}")
+    private int signInPerAccountCapacity;
+
+    @Value("${security.rate-limit.sign-in.per-account.per-second:0.1}")
+    private double signInPerAccountRate;
+
+    private Endpoint login;
+
+    private Endpoint signIn;
+
+    private Endpoint signUp;
+
+    private LoginAccountFilter loginAccountFilter;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Creates the buckets of each endpoint and starts evicting the idle ones.
+     */
+    @PostConstruct
+    public void init() {
+        login = new Endpoint(UserMetrics.LOGIN, "GET", "/user/login",
+                limiter(loginPerClientCapacity, loginPerClientRate),
+                limiter(loginPerAccountCapacity, loginPerAccountRate));
+        signIn = new Endpoint(UserMetrics.SIGN_IN, "POST", "/user/sign-in",
+                limiter(signInPerClientCapacity, signInPerClientRate),
+                limiter(signInPerAccountCapacity, signInPerAccountRate));
+        signUp = new Endpoint(UserMetrics.SIGN_UP, "POST", "/user/sign-up",
+                limiter(signUpPerClientCapacity, signUpPerClientRate),
+                limiter(signUpPerAccountCapacity, signUpPerAccountRate));
+        loginAccountFilter = new LoginAccountFilter();
+
+        scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("rate-limit-"));
+        scheduler.scheduleWithFixedDelay(this::evictIdle, evictionIntervalMs, evictionIntervalMs,
+                TimeUnit.MILLISECONDS);
+
+        Gauge.builder("user.rate_limit.keys", this, RateLimitFilter::trackedKeys)
+                .description("Clients and accounts with a rate limit bucket in memory")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdown();
+    }
+
+    /**
+     * Returns the filter that applies the login {@code per-account} limit. It must run after {@link JwtFilter},
+     * which exposes the verified claims it reads.
+     *
+     * @return the login per-account filter
+     */
+    public OncePerRequestFilter loginAccountFilter() {
+        return loginAccountFilter;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        return !enabled || endpoint(request) == null;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        var endpoint = endpoint(request);
+        if (endpoint.perClient != null
+                && reject(endpoint, PER_CLIENT, endpoint.perClient, request.getRemoteAddr(), response)) {
+            return;
+        }
+        if (endpoint != login && endpoint.perAccount != null) {
+            var peeked = new PeekedBodyRequest(request);
+            request = peeked;
+            var account = emailOf(peeked);
+            if (account != null && reject(endpoint, PER_ACCOUNT, endpoint.perAccount, account, response)) {
+                return;
+            }
+        }
+        filterChain.doFilter(request, response);
+    }
+
+    private boolean reject(Endpoint endpoint, String scope, RateLimiter limiter, String key,
+                           HttpServletResponse response) throws IOException {
+        long waitNanos = limiter.tryAcquire(key);
+        if (waitNanos == 0) {
+            return false;
+        }
+        userMetrics.throttled(endpoint.name, scope);
+        long oneSecond = TimeUnit.SECONDS.toNanos(1);
+        long retryAfterSeconds = (waitNanos + oneSecond - 1) / oneSecond;
+        var errorDetail = new ErrorResponse.ErrorDetail(
+                Instant.now(),
+                HttpStatus.TOO_MANY_REQUESTS.value(),
+                DEFAULT_MESSAGE
+        );
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        objectMapper.writeValue(response.getOutputStream(), new ErrorResponse(List.of(errorDetail)));
+        return true;
+    }
+
+    /**
+     * Finds the limited endpoint a request targets. Trailing slashes are ignored, as Spring MVC does when it maps
+     * the request, so {@code /user/login/} counts against the same buckets as {@code /user/login}.
+     *
+     * @return the endpoint, or {@code null} if the request is not limited
+     */
+    private Endpoint endpoint(HttpServletRequest request) {
+        var path = request.getRequestURI().substring(request.getContextPath().length());
+        int end = path.length();
+        while (end > 1 && path.charAt(end - 1) == '/') {
+            end--;
+        }
+        path = path.substring(0, end);
+        if (login != null && login.matches(request.getMethod(), path)) {
+            return login;
+        }
+        if (signIn != null && signIn.matches(request.getMethod(), path)) {
+            return signIn;
+        }
+        if (signUp != null && signUp.matches(request.getMethod(), path)) {
+            return signUp;
+        }
+        return null;
+    }
+
+    /**
+     * Reads the top-level {@code email} field from the start of the body, normalized so that case variants
+     * share a bucket.
+     *
+     * @return the email, or {@code null} if it is not within the peeked bytes
+     */
+    private String emailOf(PeekedBodyRequest request) {
+        try (var parser = objectMapper.getFactory().createParser(request.peeked, 0, request.peekedLength)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                return null;
+            }
+            JsonToken token;
+            while ((token = parser.nextToken()) == JsonToken.FIELD_NAME) {
+                var field = parser.getCurrentName();
+                var value = parser.nextToken();
+                if ("email".equals(field) && value == JsonToken.VALUE_STRING) {
+                    return User.normalizeEmail(parser.getText());
+                }
+                parser.skipChildren();
+            }
+            return null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads the subject verified by {@link JwtFilter}, normalized so that case variants share a bucket.
+     *
+     * @return the subject, or {@code null} if the request carries no valid token
+     */
+    private static String subjectOf(HttpServletRequest request) {
+        var claims = request.getAttribute(JwtFilter.CLAIMS_ATTRIBUTE);
+        if (!(claims instanceof Claims) || ((Claims) claims).getSubject() == null) {
+            return null;
+        }
+        return User.normalizeEmail(((Claims) claims).getSubject());
+    }
+
+    private void evictIdle() {
+        try {
+            for (var endpoint : List.of(login, signIn, signUp)) {
+                if (endpoint.perClient != null) {
+                    endpoint.perClient.evictIdle();
+                }
+                if (endpoint.perAccount != null) {
+                    endpoint.perAccount.evictIdle();
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("Could not evict idle rate limit buckets", e);
+        }
+    }
+
+    private double trackedKeys() {
+        int keys = 0;
+        for (var endpoint : List.of(login, signIn, signUp)) {
+            keys += endpoint.perClient != null ? endpoint.perClient.size() : 0;
+            keys += endpoint.perAccount != null ? endpoint.perAccount.size() : 0;
+        }
+        return keys;
+    }
+
+    /**
+     * @return a limiter, or {@code null} when the capacity is 0 to disable that limit
+     */
+    private static RateLimiter limiter(int capacity, double perSecond) {
+        return capacity > 0 ? new RateLimiter(capacity, perSecond, System::nanoTime) : null;
+    }
+
+    @RequiredArgsConstructor
+    private static final class Endpoint {
+
+        private final String name;
+
+        private final String method;
+
+        private final String path;
+
+        private final RateLimiter perClient;
+
+        private final RateLimiter perAccount;
+
+        boolean matches(String requestMethod, String requestPath) {
+            return method.equals(requestMethod) && path.equals(requestPath);
+        }
+    }
+
+    /**
+     * Applies the login {@code per-account} limit to requests whose token {@link JwtFilter} has verified.
+     * Requests without a valid token are only limited per client.
+     */
+    private final class LoginAccountFilter extends OncePerRequestFilter {
+
+        @Override
+        protected boolean shouldNotFilter(HttpServletRequest request) {
+            return !enabled || login.perAccount == null || endpoint(request) != login;
+        }
+
+        @Override
+        protected void doFilterInternal(HttpServletRequest request,
+                                        HttpServletResponse response,
+                                        FilterChain filterChain) throws ServletException, IOException {
+            var account = subjectOf(request);
+            if (account != null && reject(login, PER_ACCOUNT, login.perAccount, account, response)) {
+                return;
+            }
+            filterChain.doFilter(request, response);
+        }
+    }
+
+    /**
+     * Request whose body has been read up to {@value #MAX_PEEKED_BODY_BYTES} bytes, replaying those bytes
+     * before the rest of the original stream.
+     */
+    private static final class PeekedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] peeked;
+
+        private final int peekedLength;
+
+        private ServletInputStream inputStream;
+
+        PeekedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            var buffer = new byte[MAX_PEEKED_BODY_BYTES];
+            int length = request.getInputStream().readNBytes(buffer, 0, buffer.length);
+            this.peeked = length < buffer.length ? Arrays.copyOf(buffer, length) : buffer;
+            this.peekedLength = length;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (inputStream == null) {
+                inputStream = replay(super.getInputStream());
+            }
+            return inputStream;
+        }
+
+        @Override
+        public BufferedReader getReader() throws IOException {
+            var encoding = getCharacterEncoding();
+            var charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+            return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+
+        private ServletInputStream replay(ServletInputStream rest) {
+            return new ServletInputStream() {
+
+                private int position;
+
+                @Override
+                public int read() throws IOException {
+                    return position < peekedLength ? peeked[position++] & 0xFF : rest.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    if (position < peekedLength) {
+                        int n = Math.min(len, peekedLength - position);
+                        System.arraycopy(peeked, position, b, off, n);
+                        position += n;
+                        return n;
+                    }
+                    return rest.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return position >= peekedLength && rest.isFinished();
+                }
+
+                @Override
+                public boolean isReady() {
+                    return position < peekedLength || rest.isReady();
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    rest.setReadListener(readListener);
+                }
+            };
+        }
+    }
+}
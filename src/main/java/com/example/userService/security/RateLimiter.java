@@ -0,0 +1,114 @@
+package com.example.userService.security;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Token buckets keyed by string, with a {@code capacity} burst refilled at {@code perSecond} tokens per second.
+ * <p>
+ * Each bucket is a single {@link AtomicLong} holding its theoretical arrival time (the generic cell rate
+ * algorithm): taking a token is one compare-and-set, with no lock and no refill thread. Keys are spread over
+ * {@value #SHARDS} maps so that {@link #evictIdle()} sweeps them one at a time; a bucket whose arrival time
+ * has passed is full again and is removed, since a new bucket behaves the same.
+ */
+public class RateLimiter {
+
+    private static final int SHARDS = 16;
+
+    private final List<ConcurrentHashMap<String, AtomicLong>> shards;
+
+    private final long emissionIntervalNanos;
+
+    private final long burstToleranceNanos;
+
+    private final LongSupplier nanoClock;
+
+    /**
+     * @param capacity  tokens available at once, at least 1
+     * @param perSecond tokens added per second, above 0
+     * @param nanoClock source of time in nanoseconds, such as {@link System#nanoTime()}
+     */
+    public RateLimiter(int capacity, double perSecond, LongSupplier nanoClock) {
+        if (capacity < 1 || !(perSecond > 0)) {
+            throw new IllegalArgumentException("Capacity must be at least 1 and the rate above 0");
+        }
+        this.emissionIntervalNanos = Math.max(1, (long) (TimeUnit.SECONDS.toNanos(1) / perSecond));
+        this.burstToleranceNanos = emissionIntervalNanos * (capacity - 1);
+        this.nanoClock = nanoClock;
+        var shards = new ArrayList<ConcurrentHashMap<String, AtomicLong>>(SHARDS);
+        for (int i = 0; i < SHARDS; i++) {
+            shards.add(new ConcurrentHashMap<>());
+        }
+        this.shards = List.copyOf(shards);
+    }
+
+    /**
+     * Takes a token from the bucket of {@code key}.
+     *
+     * @param key the client or account the request counts against
+     * @return 0 if a token was taken, otherwise the nanoseconds until one is available
+     */
+    public long tryAcquire(String key) {
+        var shard = shard(key);
+        long now = nanoClock.getAsLong();
+        var bucket = shard.get(key);
+        if (bucket == null) {
+            var created = new AtomicLong(now);
+            bucket = shard.putIfAbsent(key, created);
+            if (bucket == null) {
+                bucket = created;
+            }
+        }
+        while (true) {
+            long arrival = bucket.get();
+            long start = arrival - now > 0 ? arrival : now;
+            long wait = start - now - burstToleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (bucket.compareAndSet(arrival, start + emissionIntervalNanos)) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Removes the buckets that are full again. A request racing with the removal may take its token from the
+     * removed bucket, which at worst grants that key one extra token.
+     *
+     * @return the number of buckets removed
+     */
+    public int evictIdle() {
+        int evicted = 0;
+        for (var shard : shards) {
+            long now = nanoClock.getAsLong();
+            for (var entry : shard.entrySet()) {
+                var bucket = entry.getValue();
+                if (bucket.get() - now <= 0 && shard.remove(entry.getKey(), bucket)) {
+                    evicted++;
+                }
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * @return the number of keys currently tracked
+     */
+    public int size() {
+        int size = 0;
+        for (var shard : shards) {
+            size += shard.size();
+        }
+        return size;
+    }
+
+    private ConcurrentHashMap<String, AtomicLong> shard(String key) {
+        int hash = key.hashCode();
+        return shards.get((hash ^ (hash >>> 16)) & (SHARDS - 1));
+    }
+}
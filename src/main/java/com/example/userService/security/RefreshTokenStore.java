@@ -0,0 +1,202 @@
+package com.example.userService.security;
+
+import com.example.userService.exceptions.InvalidRefreshTokenException;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-memory store of opaque refresh tokens, rotated on every use.
+ * <p>
+ * Each login starts a session: a chain of refresh tokens of which only the latest one is valid.
+ * <ul>
+ *     <li>Tokens are 256 random bits; only their SHA-256 digest is kept, so the store never holds a usable token.</li>
+ *     <li>Refreshing consumes the presented token and returns the next one of the chain.</li>
+ *     <li>Presenting a token that was already consumed means it was copied; the whole session is revoked,
+ *     so neither the legitimate client nor the copy can refresh again.</li>
+ * </ul>
+ * Consumed tokens are remembered until they would have expired, to recognize reuse. Sessions do not survive a
+ * restart: clients then log in again.
+ * <p>
+ * Both maps are Caffeine caches whose entries expire {@code jwt.refresh.expiration} after they were last written,
+ * bounded to {@code jwt.refresh.max-sessions} sessions and {@code jwt.refresh.max-tokens} tokens. When a bound is
+ * reached, the entries least likely to be used again are evicted:
+ * <ul>
+ *     <li>An evicted session behaves like a revoked one: its refresh token is rejected and the client logs in
+ *     again.</li>
+ *     <li>An evicted consumed token is no longer recognized as reused; presenting it is rejected as an unknown token,
+ *     without revoking its session. Evicting the current token of a session ends that session as above.</li>
+ * </ul>
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RefreshTokenStore {
+
+    private static final int TOKEN_BYTES = 32;
+
+    /** Registry where the number of sessions is published. */
+    private final MeterRegistry meterRegistry;
+
+    /** Lifetime of each refresh token in milliseconds. */
+    @Value("${jwt.refresh.expiration:2592000000}")
+    private long expiration;
+
+    /** Maximum number of sessions kept. */
+    @Value("${jwt.refresh.max-sessions:100000}")
+    private long maxSessions;
+
+    /** Maximum number of token digests kept, current and consumed ones. */
+    @Value("${jwt.refresh.max-tokens:400000}")
+    private long maxTokens;
+
+    private final SecureRandom random = new SecureRandom();
+
+    /** Every issued token that has not expired, keyed by digest. */
+    private Cache<String, TokenEntry> tokens;
+
+    /** Live sessions, keyed by id. */
+    private Cache<String, Session> sessions;
+
+    /**
+     * A refresh token handed to a client, with the session it belongs to.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public static final class IssuedToken {
+        private final String token;
+        private final String sessionId;
+        private final String subject;
+    }
+
+    /**
+     * State of an issued token. Immutable, so it can be read without locking.
+     */
+    @RequiredArgsConstructor
+    private static final class TokenEntry {
+        private final String sessionId;
+    }
+
+    /**
+     * A chain of refresh tokens, with the digest of the only one that may still be used.
+     */
+    @RequiredArgsConstructor
+    private static final class Session {
+        private final String subject;
+        private final String currentDigest;
+    }
+
+    /**
+     * Builds the bounded token and session caches.
+     */
+    @PostConstruct
+    public void init() {
+        tokens = Caffeine.newBuilder()
+                .maximumSize(maxTokens)
+                .expireAfterWrite(expiration, TimeUnit.MILLISECONDS)
+                .build();
+        sessions = Caffeine.newBuilder()
+                .maximumSize(maxSessions)
+                .expireAfterWrite(expiration, TimeUnit.MILLISECONDS)
+                .build();
+
+        Gauge.builder("jwt.refresh.sessions.active", sessions, Cache::estimatedSize)
+                .description("Sessions with a refresh token that can still be used")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Starts a new session for a user.
+     *
+     * @param subject the user email
+     * @return the first refresh token of the session
+     */
+    public IssuedToken issue(String subject) {
+        var sessionId = UUID.randomUUID().toString();
+        var token = newToken();
+        var digest = digest(token);
+        tokens.put(digest, new TokenEntry(sessionId));
+        sessions.put(sessionId, new Session(subject, digest));
+        return new IssuedToken(token, sessionId, subject);
+    }
+
+    /**
+     * Consumes a refresh token and returns the next one of its session.
+     *
+     * @param token the refresh token presented by the client
+     * @return the new refresh token
+     * @throws InvalidRefreshTokenException if the token is unknown, expired, revoked or was already used;
+     *                                      in the last case its session is revoked
+     */
+    public IssuedToken rotate(String token) {
+        var digest = digest(token);
+        var entry = tokens.getIfPresent(digest);
+        if (entry == null) {
+            throw new InvalidRefreshTokenException();
+        }
+        var next = newToken();
+        var nextDigest = digest(next);
+        var rotated = new Session[1];
+        sessions.asMap().computeIfPresent(entry.sessionId, (id, session) -> {
+            if (!session.currentDigest.equals(digest)) {
+                log.warn("Refresh token reused, revoking session {} of {}", id, session.subject);
+                return null;
+            }
+            rotated[0] = new Session(session.subject, nextDigest);
+            return rotated[0];
+        });
+        if (rotated[0] == null) {
+            throw new InvalidRefreshTokenException();
+        }
+        tokens.put(nextDigest, new TokenEntry(entry.sessionId));
+        return new IssuedToken(next, entry.sessionId, rotated[0].subject);
+    }
+
+    /**
+     * Revokes a session, so none of its refresh tokens can be used.
+     *
+     * @param sessionId the session id, as carried by the {@code sid} claim of access tokens
+     */
+    public void revokeSession(String sessionId) {
+        sessions.invalidate(sessionId);
+    }
+
+    /**
+     * Revokes every session of a user.
+     *
+     * @param subject the user email
+     */
+    public void revokeAll(String subject) {
+        sessions.asMap().values().removeIf(session -> session.subject.equals(subject));
+    }
+
+    private String newToken() {
+        var bytes = new byte[TOKEN_BYTES];
+        random.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    private static String digest(String token) {
+        try {
+            var hash = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return Base64.getEncoder().encodeToString(hash);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
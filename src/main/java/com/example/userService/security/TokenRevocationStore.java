@@ -0,0 +1,252 @@
+package com.example.userService.security;
+
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory denylist of revoked tokens, checked by {@link JwtFilter} on every request.
+ * <p>
+ * Two kinds of revocation are kept, both answered with constant-time hash lookups:
+ * <ul>
+ *     <li>Single tokens, by {@code jti}. They are grouped in buckets by expiration time
+ *     ({@code jwt.revocation.bucket-ms}), and a bucket is dropped as a whole once all of its tokens have expired,
+ *     so memory is bounded by the revocations made during one token lifetime.</li>
+ *     <li>Every token of a user issued before a given second, kept until those tokens have expired.</li>
+ * </ul>
+ * When {@code jwt.revocation.file} is set, revocations are appended to that file and replayed on startup,
+ * after which the file is rewritten without the expired entries.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TokenRevocationStore {
+
+    private static final String TOKEN_ENTRY = "J";
+    private static final String USER_ENTRY = "U";
+
+    /** Registry where the denylist size is published. */
+    private final MeterRegistry meterRegistry;
+
+    /** Width of the expiration buckets. */
+    @Value("${jwt.revocation.bucket-ms:60000}")
+    private long bucketMs;
+
+    /** Append-only journal used to recover revocations after a restart; empty to keep them in memory only. */
+    @Value("${jwt.revocation.file:}")
+    private String file;
+
+    /** Lifetime of issued tokens, after which a revoke-all entry is no longer needed. */
+    @Value("${jwt.expiration}")
+    private long tokenLifetimeMs;
+
+    /** Revoked token ids, keyed by the expiration bucket of each token. */
+    private final Map<Long, Set<String>> revokedTokens = new ConcurrentHashMap<>();
+
+    /** Per subject, the epoch second before which every issued token is revoked. */
+    private final Map<String, Long> revokedUntil = new ConcurrentHashMap<>();
+
+    private final ReentrantLock journalLock = new ReentrantLock();
+
+    private BufferedWriter journal;
+
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * Replays and compacts the journal, then starts purging expired buckets.
+     */
+    @PostConstruct
+    public void init() throws IOException {
+        if (!file.isBlank()) {
+            var path = Path.of(file);
+            compact(path, replay(path));
+            journal = Files.newBufferedWriter(path, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("jwt-revocation-"));
+        scheduler.scheduleWithFixedDelay(this::purgeExpired, bucketMs, bucketMs, TimeUnit.MILLISECONDS);
+
+        Gauge.builder("jwt.revocations.active", this, TokenRevocationStore::size)
+                .description("Revoked tokens and users kept in the denylist")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Revokes a single token until it expires. Tokens without a {@code jti} can only be revoked
+     * with {@link #revokeAll(String, Instant)}.
+     *
+     * @param claims the verified claims of the token
+     */
+    public void revoke(Claims claims) {
+        var expiration = claims.getExpiration();
+        if (claims.getId() == null || expiration == null || expiration.getTime() <= System.currentTimeMillis()) {
+            return;
+        }
+        if (addToken(claims.getId(), expiration.getTime())) {
+            append(TOKEN_ENTRY, expiration.getTime(), claims.getId());
+        }
+    }
+
+    /**
+     * Revokes every token of a user issued before the second of {@code issuedUntil}.
+     * <p>
+     * {@code iat} only has second precision, so tokens issued within that second cannot be told apart: they are
+     * kept, so that a token signed right after the revocation, such as by sign-in, is valid. Callers revoke the
+     * token at hand with {@link #revoke(Claims)} when it may fall within that second.
+     *
+     * @param subject     the token subject (the user email)
+     * @param issuedUntil tokens issued in earlier seconds are revoked
+     */
+    public void revokeAll(String subject, Instant issuedUntil) {
+        long second = issuedUntil.getEpochSecond();
+        revokedUntil.merge(subject, second, Math::max);
+        append(USER_ENTRY, second, subject);
+    }
+
+    /**
+     * Checks the denylist for a token.
+     *
+     * @param claims the verified claims of the token
+     * @return {@code true} if the token or all tokens of its subject were revoked
+     */
+    public boolean isRevoked(Claims claims) {
+        var issuedAt = claims.getIssuedAt();
+        if (issuedAt != null && claims.getSubject() != null) {
+            var until = revokedUntil.get(claims.getSubject());
+            if (until != null && issuedAt.getTime() / 1000 < until) {
+                return true;
+            }
+        }
+        var expiration = claims.getExpiration();
+        if (claims.getId() == null || expiration == null) {
+            return false;
+        }
+        var bucket = revokedTokens.get(bucketOf(expiration.getTime()));
+        return bucket != null && bucket.contains(claims.getId());
+    }
+
+    /**
+     * Stops the purge task and closes the journal.
+     */
+    @PreDestroy
+    public void shutdown() throws IOException {
+        scheduler.shutdown();
+        if (journal != null) {
+            journalLock.lock();
+            try {
+                journal.close();
+            } finally {
+                journalLock.unlock();
+            }
+        }
+    }
+
+    int size() {
+        return revokedTokens.values().stream().mapToInt(Set::size).sum() + revokedUntil.size();
+    }
+
+    /**
+     * Drops the buckets whose tokens have all expired and the revoke-all entries that no token can outlive.
+     */
+    void purgeExpired() {
+        long now = System.currentTimeMillis();
+        revokedTokens.keySet().removeIf(bucket -> (bucket + 1) * bucketMs <= now);
+        revokedUntil.values().removeIf(second -> second * 1000 + tokenLifetimeMs < now);
+    }
+
+    private boolean addToken(String jti, long expiresAt) {
+        return revokedTokens.computeIfAbsent(bucketOf(expiresAt), bucket -> ConcurrentHashMap.newKeySet()).add(jti);
+    }
+
+    private long bucketOf(long expiresAt) {
+        return expiresAt / bucketMs;
+    }
+
+    private void append(String type, long time, String value) {
+        if (journal == null) {
+            return;
+        }
+        journalLock.lock();
+        try {
+            journal.write(type + ' ' + time + ' ' + value);
+            journal.newLine();
+            journal.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not record token revocation", e);
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    /**
+     * Loads the live entries of the journal. Malformed lines, such as one cut short by a crash, are skipped.
+     *
+     * @return the lines of the entries that are still live
+     */
+    private List<String> replay(Path path) throws IOException {
+        var live = new ArrayList<String>();
+        if (!Files.exists(path)) {
+            return live;
+        }
+        long now = System.currentTimeMillis();
+        try (var lines = Files.lines(path, StandardCharsets.UTF_8)) {
+            lines.forEach(line -> {
+                var parts = line.split(" ", 3);
+                if (parts.length != 3) {
+                    return;
+                }
+                try {
+                    long time = Long.parseLong(parts[1]);
+                    if (TOKEN_ENTRY.equals(parts[0]) && time > now) {
+                        addToken(parts[2], time);
+                        live.add(line);
+                    } else if (USER_ENTRY.equals(parts[0]) && time * 1000 + tokenLifetimeMs >= now) {
+                        revokedUntil.merge(parts[2], time, Math::max);
+                        live.add(line);
+                    }
+                } catch (NumberFormatException e) {
+                    log.warn("Skipping malformed revocation entry");
+                }
+            });
+        }
+        log.info("Recovered {} token revocations from {}", size(), path);
+        return live;
+    }
+
+    /**
+     * Atomically replaces the journal with only its live entries.
+     */
+    private void compact(Path path, List<String> liveLines) throws IOException {
+        var parent = path.toAbsolutePath().getParent();
+        Files.createDirectories(parent);
+        var compacted = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+        Files.write(compacted, liveLines, StandardCharsets.UTF_8);
+        Files.move(compacted, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
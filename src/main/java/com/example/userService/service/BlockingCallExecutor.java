@@ -0,0 +1,156 @@
+package com.example.userService.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Where blocking calls made on behalf of a request, such as JDBC, are run.
+ * <ul>
+ *     <li>By default they run on the calling thread, as plain method calls.</li>
+ *     <li>With {@code execution.virtual-threads.enabled}, set by the {@code virtual-threads} profile, every call
+ *     runs on a virtual thread of its own, so waiting for the database parks the virtual thread and frees its
+ *     carrier. This needs Java 21 at runtime; the code still compiles for Java 11, so the executor is looked up
+ *     reflectively and startup fails on older runtimes. At most {@code execution.virtual-threads.max-concurrency}
+ *     requests, by default the size of the connection pool, run their blocking part at once; the others wait for
+ *     a permit in arrival order rather than all polling the pool, which times them out under load.</li>
+ * </ul>
+ * Work continuing after another pool, such as the hashing pool, goes through {@link #supplyAfter} so that it does
+ * not hold that pool's thread while it waits. Without virtual threads it runs on a fixed pool of
+ * {@code execution.blocking-pool.size} platform threads, by default the size of the connection pool. Its queue is
+ * not bounded: work only reaches it from stages that are bounded themselves, such as the hashing queue.
+ * <p>
+ * This is not an {@link Executor} bean on purpose: one would replace Spring Boot's {@code applicationTaskExecutor}.
+ */
+@Slf4j
+@Component
+public class BlockingCallExecutor {
+
+    private static final Executor CALLER_THREAD = Runnable::run;
+
+    @Value("${execution.virtual-threads.enabled:false}")
+    private boolean virtualThreads;
+
+    @Value("${execution.virtual-threads.max-concurrency:${spring.datasource.hikari.maximum-pool-size:10}}")
+    private int maxConcurrency;
+
+    @Value("${execution.blocking-pool.size:${spring.datasource.hikari.maximum-pool-size:10}}")
+    private int platformPoolSize;
+
+    private ExecutorService virtualThreadExecutor;
+
+    private ExecutorService platformExecutor;
+
+    private Executor boundedExecutor;
+
+    @PostConstruct
+    public void init() {
+        if (virtualThreads) {
+            virtualThreadExecutor = newVirtualThreadPerTaskExecutor();
+            var permits = new Semaphore(maxConcurrency, true);
+            boundedExecutor = task -> virtualThreadExecutor.execute(() -> {
+                permits.acquireUninterruptibly();
+                try {
+                    task.run();
+                } finally {
+                    permits.release();
+                }
+            });
+            log.info("Running blocking calls on virtual threads, at most {} at once", maxConcurrency);
+        } else {
+            platformExecutor = Executors.newFixedThreadPool(platformPoolSize,
+                    new CustomizableThreadFactory("blocking-call-"));
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (virtualThreadExecutor != null) {
+            virtualThreadExecutor.shutdown();
+        }
+        if (platformExecutor != null) {
+            platformExecutor.shutdown();
+        }
+    }
+
+    /**
+     * @return whether blocking calls run on virtual threads
+     */
+    public boolean isVirtualThreads() {
+        return virtualThreads;
+    }
+
+    /**
+     * @return an executor starting a virtual thread per task, or one running tasks on the caller thread
+     */
+    public Executor executor() {
+        return virtualThreads ? virtualThreadExecutor : CALLER_THREAD;
+    }
+
+    /**
+     * Runs the blocking part of a request.
+     * <p>
+     * On virtual threads, the task waits for one of the {@code max-concurrency} permits; tasks started from it
+     * through {@link #executor()} do not, so they cannot wait on permits their caller holds. The returned future
+     * is completed from a platform thread of the common pool: Spring MVC dispatches the response from the thread
+     * that completes it, through code that waits for Tomcat's locks while holding monitors, which would pin the
+     * carrier thread.
+     *
+     * @param task the blocking task
+     * @param <T>  the type of the result
+     * @return a future completed with the result of the task, already done when running on the caller thread
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> task) {
+        if (!virtualThreads) {
+            return CompletableFuture.supplyAsync(task, CALLER_THREAD);
+        }
+        return CompletableFuture.supplyAsync(task, boundedExecutor)
+                .thenApplyAsync(Function.identity(), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Runs the blocking part of a request once another stage, typically on a CPU-bound pool, completes.
+     * <p>
+     * On virtual threads this is {@link #supply(Supplier)} chained to the stage; otherwise the task runs on the
+     * platform pool rather than on the thread that completed the stage.
+     *
+     * @param stage the stage whose result the task needs
+     * @param task  the blocking task
+     * @param <U>   the type of the stage's result
+     * @param <T>   the type of the result
+     * @return a future completed with the result of the task, or exceptionally if the stage or the task fails
+     */
+    public <U, T> CompletableFuture<T> supplyAfter(CompletableFuture<U> stage, Function<? super U, ? extends T> task) {
+        if (!virtualThreads) {
+            return stage.thenApplyAsync(task, platformExecutor);
+        }
+        return stage.thenCompose(value -> supply(() -> task.apply(value)));
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            var factory = MethodHandles.publicLookup().findStatic(Executors.class,
+                    "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class));
+            return (ExecutorService) factory.invoke();
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            throw new IllegalStateException("Virtual threads need Java 21 or later, running on "
+                    + Runtime.version(), e);
+        } catch (Throwable e) {
+            throw new IllegalStateException("Cannot create the virtual thread executor", e);
+        }
+    }
+}
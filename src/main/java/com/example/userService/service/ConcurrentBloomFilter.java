@@ -0,0 +1,121 @@
+package com.example.userService.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free Bloom filter of strings backed by an {@link AtomicLongArray}.
+ * <p>
+ * Bits are only ever set, with a compare-and-set loop, so concurrent {@link #put(CharSequence)} and
+ * {@link #mightContain(CharSequence)} calls need no locking. Strings are hashed char by char,
+ * without allocating, and the probe positions are derived from two 64-bit hashes
+ * (Kirsch–Mitzenmacher double hashing).
+ */
+public class ConcurrentBloomFilter {
+
+    private static final long SEED_1 = 0x9E3779B97F4A7C15L;
+    private static final long SEED_2 = 0xC2B2AE3D27D4EB4FL;
+    private static final int MAX_HASH_FUNCTIONS = 16;
+
+    private final AtomicLongArray words;
+
+    private final long bitCount;
+
+    private final int hashFunctions;
+
+    /**
+     * Sizes the filter for the expected number of elements and false-positive rate,
+     * without exceeding the memory budget.
+     *
+     * @param expectedInsertions expected number of elements
+     * @param falsePositiveRate  target probability of a false positive, between 0 and 1
+     * @param maxMemoryBytes     upper bound for the bit array
+     */
+    public ConcurrentBloomFilter(long expectedInsertions, double falsePositiveRate, long maxMemoryBytes) {
+        long n = Math.max(1, expectedInsertions);
+        long optimalBits = (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        long bits = Math.max(Long.SIZE, Math.min(optimalBits, Math.max(Long.BYTES, maxMemoryBytes) * Byte.SIZE));
+        int wordCount = (int) Math.min(Integer.MAX_VALUE - 8, (bits + Long.SIZE - 1) / Long.SIZE);
+
+        this.words = new AtomicLongArray(wordCount);
+        this.bitCount = (long) wordCount * Long.SIZE;
+        this.hashFunctions = (int) Math.max(1, Math.min(MAX_HASH_FUNCTIONS, Math.round((double) bitCount / n * Math.log(2))));
+    }
+
+    /**
+     * Adds a value to the filter.
+     *
+     * @param value the value to add
+     */
+    public void put(CharSequence value) {
+        long hash1 = hash(value, SEED_1);
+        long hash2 = hash(value, SEED_2) | 1;
+        for (int i = 0; i < hashFunctions; i++) {
+            setBit(Math.floorMod(hash1 + i * hash2, bitCount));
+        }
+    }
+
+    /**
+     * Tests whether a value may have been added.
+     *
+     * @param value the value to look up
+     * @return {@code false} if the value was definitely never added; {@code true} if it might have been
+     */
+    public boolean mightContain(CharSequence value) {
+        long hash1 = hash(value, SEED_1);
+        long hash2 = hash(value, SEED_2) | 1;
+        for (int i = 0; i < hashFunctions; i++) {
+            long bit = Math.floorMod(hash1 + i * hash2, bitCount);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public long bitSize() {
+        return bitCount;
+    }
+
+    public int hashFunctions() {
+        return hashFunctions;
+    }
+
+    /**
+     * Expected false-positive rate once the given number of elements has been added.
+     *
+     * @param insertions number of elements added
+     * @return the estimated false-positive probability
+     */
+    public double expectedFalsePositiveRate(long insertions) {
+        return Math.pow(1 - Math.exp(-(double) hashFunctions * insertions / bitCount), hashFunctions);
+    }
+
+    private void setBit(long bit) {
+        int index = (int) (bit >>> 6);
+        long mask = 1L << bit;
+        long current = words.get(index);
+        while ((current & mask) == 0 && !words.compareAndSet(index, current, current | mask)) {
+            current = words.get(index);
+        }
+    }
+
+    private static long hash(CharSequence value, long seed) {
+        long hash = seed ^ value.length();
+        for (int i = 0; i < value.length(); i++) {
+            hash = Long.rotateLeft((hash ^ value.charAt(i)) * SEED_1, 31) * SEED_2;
+        }
+        return mix(hash);
+    }
+
+    /**
+     * MurmurHash3 64-bit finalizer.
+     */
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+}
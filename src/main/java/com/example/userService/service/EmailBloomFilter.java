@@ -0,0 +1,158 @@
+package com.example.userService.service;
+
+import com.example.userService.entity.User;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.ResultSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bloom filter of registered emails, used to skip the existence check of sign-ups with new emails.
+ * Emails are added and tested in their {@linkplain User#normalizeEmail(String) normalized} form.
+ * <p>
+ * The filter is warmed from the {@code users} table with a streaming scan on a background thread once the
+ * application is ready, so startup does not wait for the whole table, and updated after every successful insert,
+ * including those made during the scan. The scan runs in a read-only transaction: with autocommit on, the
+ * PostgreSQL driver ignores the fetch size and would load the whole table at once. Until the warm-up completes,
+ * if it fails, and when disabled with {@code user.bloom.enabled}, every email is reported as possibly present so
+ * the regular check still runs.
+ * Size is driven by {@code user.bloom.expected-insertions}, {@code user.bloom.false-positive-rate}
+ * and capped by {@code user.bloom.max-memory-bytes}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EmailBloomFilter {
+
+    static final String EMAILS_SQL = "SELECT email FROM users";
+
+    /** Template used to stream the registered emails. */
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Transaction manager wrapping the warm-up scan. */
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${user.bloom.enabled:true}")
+    private boolean enabled;
+
+    @Value("${user.bloom.expected-insertions:1000000}")
+    private long expectedInsertions;
+
+    @Value("${user.bloom.false-positive-rate:0.01}")
+    private double falsePositiveRate;
+
+    @Value("${user.bloom.max-memory-bytes:4194304}")
+    private long maxMemoryBytes;
+
+    @Value("${user.bloom.warm-up-fetch-size:1000}")
+    private int warmUpFetchSize;
+
+    private ConcurrentBloomFilter filter;
+
+    private final AtomicLong insertions = new AtomicLong();
+
+    private ExecutorService executor;
+
+    private volatile boolean ready;
+
+    /**
+     * Allocates the bit array.
+     */
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        filter = new ConcurrentBloomFilter(expectedInsertions, falsePositiveRate, maxMemoryBytes);
+        log.info("Email Bloom filter sized to {} KiB with {} hash functions, expected false-positive rate {}",
+                filter.bitSize() / Byte.SIZE / 1024, filter.hashFunctions(),
+                filter.expectedFalsePositiveRate(expectedInsertions));
+    }
+
+    /**
+     * Starts the warm-up on a background thread.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        executor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("email-bloom-warm-up-"));
+        executor.execute(() -> {
+            try {
+                warmUp();
+            } catch (RuntimeException e) {
+                log.error("Email Bloom filter warm-up failed, every sign-up checks the database", e);
+            }
+        });
+        executor.shutdown();
+    }
+
+    /**
+     * Stops a warm-up still running; the filter then stays unused until the next start.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Loads every registered email into the filter on the calling thread, streaming the rows instead of loading
+     * them at once.
+     */
+    public void warmUp() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        RowCallbackHandler addEmail = (ResultSet rs) -> put(rs.getString(1));
+        var readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+        readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement(EMAILS_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(warmUpFetchSize);
+            return statement;
+        }, addEmail));
+        ready = true;
+        log.info("Email Bloom filter warmed with {} emails in {} ms", insertions.get(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    /**
+     * Records a registered email.
+     *
+     * @param email the email that was stored
+     */
+    public void put(String email) {
+        if (enabled && email != null) {
+            filter.put(User.normalizeEmail(email));
+            insertions.incrementAndGet();
+        }
+    }
+
+    /**
+     * Tests whether an email may already be registered.
+     *
+     * @param email the email to check
+     * @return {@code false} only if the email is definitely not registered
+     */
+    public boolean mightContain(String email) {
+        return !enabled || !ready || filter.mightContain(User.normalizeEmail(email));
+    }
+}
@@ -0,0 +1,206 @@
+package com.example.userService.service;
+
+import com.example.userService.entity.User;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Fills {@code email_normalized} for the users stored before the column existed.
+ * <p>
+ * Once the application is ready, a background thread walks the rows still missing the value in primary key
+ * order, {@code user.email-backfill.batch-size} at a time, and writes each batch as one JDBC batch in its
+ * own transaction, pausing {@code user.email-backfill.pause-ms} between batches to leave room for live traffic.
+ * <ul>
+ *     <li>A row whose normalized email already belongs to another user, i.e. the same address registered
+ *     twice with different case, is left as is and logged, to be merged by hand. Until then, the address
+ *     resolves to the user holding the normalized email.</li>
+ *     <li>A batch that collides with a concurrent sign-up is rolled back and read again.</li>
+ *     <li>Running it on several instances at once is harmless: the update only touches rows still missing
+ *     the value.</li>
+ * </ul>
+ * Until the walk completes, {@link #isComplete()} is {@code false} and lookups that miss on the normalized
+ * email also try the email as entered, so users not reached yet can still log in. Turning the job off with
+ * {@code user.email-backfill.enabled} declares every row normalized and stops that second lookup.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EmailNormalizationBackfill {
+
+    /** Databases disagree on how UUIDs compare, so the walk starts without a lower bound. */
+    static final String SELECT_FIRST_SQL = "SELECT id, email FROM users WHERE email_normalized IS NULL "
+            + "ORDER BY id LIMIT ?";
+
+    static final String SELECT_NEXT_SQL = "SELECT id, email FROM users WHERE email_normalized IS NULL AND id > ? "
+            + "ORDER BY id LIMIT ?";
+
+    static final String EXISTING_SQL = "SELECT email_normalized FROM users WHERE email_normalized IN (:emails)";
+
+    static final String UPDATE_SQL = "UPDATE users SET email_normalized = ? WHERE id = ? AND email_normalized IS NULL";
+
+    private static final RowMapper<Row> ROW_MAPPER = (rs, rowNum) -> new Row(rs.getObject(1, UUID.class), rs.getString(2));
+
+    /** Template used to read and update the batches. */
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Template used to check a batch for emails already taken. */
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+
+    /** Transaction manager wrapping each batch. */
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${user.email-backfill.enabled:true}")
+    private boolean enabled;
+
+    @Value("${user.email-backfill.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${user.email-backfill.pause-ms:50}")
+    private long pauseMs;
+
+    private ExecutorService executor;
+
+    private volatile boolean complete;
+
+    /**
+     * Starts the walk on a background thread.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            complete = true;
+            return;
+        }
+        executor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("email-backfill-"));
+        executor.execute(this::run);
+    }
+
+    /**
+     * Stops the walk; the rows not reached yet are picked up on the next start.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (executor != null) {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * @return {@code true} once every row has its normalized email, except those left for a manual merge
+     */
+    public boolean isComplete() {
+        return complete;
+    }
+
+    /**
+     * Walks every row missing its normalized email, batch by batch, on the calling thread.
+     */
+    public void run() {
+        long start = System.nanoTime();
+        var transaction = new TransactionTemplate(transactionManager);
+        UUID after = null;
+        long updated = 0;
+        long conflicts = 0;
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                var rows = after == null
+                        ? jdbcTemplate.query(SELECT_FIRST_SQL, ROW_MAPPER, batchSize)
+                        : jdbcTemplate.query(SELECT_NEXT_SQL, ROW_MAPPER, after, batchSize);
+                if (rows.isEmpty()) {
+                    complete = true;
+                    break;
+                }
+                Batch batch;
+                try {
+                    batch = transaction.execute(status -> update(rows));
+                } catch (DuplicateKeyException e) {
+                    log.debug("Email backfill batch after {} collided with a sign-up, reading it again", after);
+                    continue;
+                }
+                updated += batch.updated;
+                conflicts += batch.conflicts;
+                after = rows.get(rows.size() - 1).id;
+                if (pauseMs > 0) {
+                    TimeUnit.MILLISECONDS.sleep(pauseMs);
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (DataAccessException e) {
+            log.error("Email backfill stopped after {} users, lookups keep falling back to the exact email", updated, e);
+            return;
+        }
+        log.info("Email backfill {} after {} ms: {} users normalized, {} left for a manual merge",
+                complete ? "completed" : "interrupted", (System.nanoTime() - start) / 1_000_000, updated, conflicts);
+    }
+
+    private Batch update(List<Row> rows) {
+        var normalized = new ArrayList<String>(rows.size());
+        for (var row : rows) {
+            normalized.add(User.normalizeEmail(row.email));
+        }
+        var taken = new HashSet<>(namedParameterJdbcTemplate.queryForList(EXISTING_SQL,
+                Map.of("emails", normalized), String.class));
+
+        var args = new ArrayList<Object[]>(rows.size());
+        int conflicts = 0;
+        for (int i = 0; i < rows.size(); i++) {
+            if (taken.add(normalized.get(i))) {
+                args.add(new Object[]{normalized.get(i), rows.get(i).id});
+            } else {
+                log.warn("User {} has email {} differing only in case from another user, not normalized",
+                        rows.get(i).id, rows.get(i).email);
+                conflicts++;
+            }
+        }
+        int updated = 0;
+        if (!args.isEmpty()) {
+            for (int count : jdbcTemplate.batchUpdate(UPDATE_SQL, args)) {
+                updated += Math.max(count, 0);
+            }
+        }
+        return new Batch(updated, conflicts);
+    }
+
+    private static final class Row {
+        private final UUID id;
+        private final String email;
+
+        private Row(UUID id, String email) {
+            this.id = id;
+            this.email = email;
+        }
+    }
+
+    private static final class Batch {
+        private final int updated;
+        private final int conflicts;
+
+        private Batch(int updated, int conflicts) {
+            this.updated = updated;
+            this.conflicts = conflicts;
+        }
+    }
+}
@@ -1,10 +1,18 @@
 package com.example.userService.service;
 
+import com.example.userService.dto.LoginRequest;
+import com.example.userService.dto.TokenResponse;
 import com.example.userService.dto.UserRequest;
 import com.example.userService.dto.UserResponse;
 
+import java.util.concurrent.CompletableFuture;
+
 public interface IUserService {
 
-    UserResponse createUser(UserRequest request);
-    UserResponse login(String token);
+    CompletableFuture<UserResponse> createUser(UserRequest request);
+    CompletableFuture<UserResponse> login(String token);
+    CompletableFuture<UserResponse> signIn(LoginRequest request);
+    TokenResponse refreshToken(String refreshToken);
+    void logout(String token);
+    void logoutAll(String token);
 }
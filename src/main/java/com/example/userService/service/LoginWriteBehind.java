@@ -0,0 +1,202 @@
+package com.example.userService.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind buffer for the {@code last_login} and {@code token} updates issued by every login.
+ * <p>
+ * Updates are coalesced per user in memory, keeping only the most recent login, and written as a
+ * single JDBC batch:
+ * <ul>
+ *     <li>every {@code user.login.write-behind.flush-interval-ms},</li>
+ *     <li>as soon as {@code user.login.write-behind.max-pending} users are waiting,</li>
+ *     <li>and once more on shutdown, so pending logins are not lost on a graceful stop.</li>
+ * </ul>
+ * A batch that fails is written again one row at a time, so a single bad row does not hold back the others. A row
+ * that keeps failing is retried on the next flushes and dropped after {@code user.login.write-behind.max-attempts}
+ * attempts; the login itself already succeeded, only its bookkeeping is lost.
+ * <p>
+ * The login database write happens here, off the request path; it is timed per batch as
+ * {@code user.login.write-behind.flush}, and {@code user.login.write-behind.pending} tracks the backlog.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LoginWriteBehind {
+
+    static final String UPDATE_SQL = "UPDATE users SET last_login = ?, token = ? WHERE id = ?";
+
+    /** Template used to run the batched updates. */
+    private final JdbcTemplate jdbcTemplate;
+
+    /** Registry where the flush times and the backlog are published. */
+    private final MeterRegistry meterRegistry;
+
+    /** Maximum time a login update waits in memory before being written. */
+    @Value("${user.login.write-behind.flush-interval-ms:1000}")
+    private long flushIntervalMs;
+
+    /** Number of pending users that triggers an immediate flush. */
+    @Value("${user.login.write-behind.max-pending:500}")
+    private int maxPending;
+
+    /** Number of failed writes after which a login update is dropped. */
+    @Value("${user.login.write-behind.max-attempts:3}")
+    private int maxAttempts;
+
+    /** Latest pending login per user id. */
+    private final Map<UUID, PendingLogin> pending = new ConcurrentHashMap<>();
+
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    private ScheduledExecutorService scheduler;
+
+    private Timer flushTimer;
+
+    /**
+     * Starts the periodic flush.
+     */
+    @PostConstruct
+    public void init() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("login-write-behind-"));
+        scheduler.scheduleWithFixedDelay(this::flush, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+
+        Gauge.builder("user.login.write-behind.pending", pending, Map::size)
+                .description("Logins waiting to be written")
+                .register(meterRegistry);
+        flushTimer = Timer.builder("user.login.write-behind.flush")
+                .description("Time spent writing one batch of logins")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Records a login to be written later. Older pending logins of the same user are replaced.
+     *
+     * @param userId    the id of the user who logged in
+     * @param lastLogin the login time
+     * @param token     the token issued on this login
+     */
+    public void enqueue(UUID userId, LocalDateTime lastLogin, String token) {
+        pending.merge(userId, new PendingLogin(lastLogin, token, 0),
+                (current, latest) -> latest.lastLogin.isBefore(current.lastLogin) ? current : latest);
+
+        if (pending.size() >= maxPending && flushRequested.compareAndSet(false, true)) {
+            scheduler.execute(() -> {
+                flushRequested.set(false);
+                flush();
+            });
+        }
+    }
+
+    /**
+     * Writes every pending login in one JDBC batch. Updates that fail are put back for the next flush,
+     * unless a newer login of the same user arrived in the meantime or they ran out of attempts.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            if (pending.isEmpty()) {
+                return;
+            }
+            var ids = new ArrayList<UUID>(pending.size());
+            var batch = new ArrayList<PendingLogin>(pending.size());
+            for (UUID id : pending.keySet()) {
+                var login = pending.remove(id);
+                if (login != null) {
+                    ids.add(id);
+                    batch.add(login);
+                }
+            }
+            flushTimer.record(() -> write(ids, batch));
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Stops the periodic flush and writes whatever is still pending.
+     */
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        scheduler.shutdown();
+        scheduler.awaitTermination(flushIntervalMs, TimeUnit.MILLISECONDS);
+        flush();
+    }
+
+    /**
+     * @return the number of users whose login is waiting to be written
+     */
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    private void write(List<UUID> ids, List<PendingLogin> batch) {
+        var args = new ArrayList<Object[]>(batch.size());
+        for (int i = 0; i < batch.size(); i++) {
+            var login = batch.get(i);
+            args.add(new Object[]{Timestamp.valueOf(login.lastLogin), login.token, ids.get(i)});
+        }
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_SQL, args);
+        } catch (DataAccessException e) {
+            log.warn("Could not write {} login updates as one batch, writing them one by one: {}",
+                    batch.size(), e.getMessage());
+            for (int i = 0; i < batch.size(); i++) {
+                writeOne(ids.get(i), batch.get(i), args.get(i));
+            }
+        }
+    }
+
+    private void writeOne(UUID id, PendingLogin login, Object[] args) {
+        try {
+            jdbcTemplate.update(UPDATE_SQL, args);
+        } catch (DataAccessException e) {
+            int attempts = login.attempts + 1;
+            if (attempts >= maxAttempts) {
+                log.error("Dropping the login update of user {} after {} failed attempts", id, attempts, e);
+                return;
+            }
+            log.warn("Could not write the login update of user {}, retrying on next flush: {}", id, e.getMessage());
+            pending.putIfAbsent(id, new PendingLogin(login.lastLogin, login.token, attempts));
+        }
+    }
+
+    private static final class PendingLogin {
+        private final LocalDateTime lastLogin;
+        private final String token;
+        private final int attempts;
+
+        private PendingLogin(LocalDateTime lastLogin, String token, int attempts) {
+            this.lastLogin = lastLogin;
+            this.token = token;
+            this.attempts = attempts;
+        }
+    }
+}
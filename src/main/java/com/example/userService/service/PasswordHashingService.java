@@ -0,0 +1,193 @@
+package com.example.userService.service;
+
+import com.example.userService.exceptions.HashingCapacityExceededException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Encodes passwords on a dedicated, bounded thread pool.
+ * <p>
+ * Password hashing is CPU bound and slow by design, so it is kept off the servlet threads:
+ * <ul>
+ *     <li>The pool has one thread per available CPU unless {@code security.hashing.pool-size} is set.</li>
+ *     <li>Pending work is limited by {@code security.hashing.queue-capacity}; once the queue is full,
+ *     new requests are rejected with {@link HashingCapacityExceededException}.</li>
+ *     <li>{@link #verify(CharSequence, String)} checks a password on the same pool and re-encodes it when the stored
+ *     hash uses outdated parameters, so users move to the current algorithm and cost as they sign in.</li>
+ *     <li>Bulk callers can use {@link #encodeOrRunInCaller(CharSequence)} instead, which keeps at most one of their
+ *     passwords in flight per hashing thread, so the queue stays free for sign-ups, and hashes on the calling
+ *     thread when the queue is full anyway, so the import slows down rather than fails.</li>
+ *     <li>Queue depth, queue wait time, hashing time and rejections are published as metrics.</li>
+ * </ul>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PasswordHashingService {
+
+    /** Encoder used to hash the raw passwords. */
+    private final PasswordEncoder encoder;
+
+    /** Registry where the hashing pool metrics are published. */
+    private final MeterRegistry meterRegistry;
+
+    /** Number of hashing threads; {@code 0} uses the number of available CPUs. */
+    @Value("${security.hashing.pool-size:0}")
+    private int poolSize;
+
+    /** Maximum number of passwords waiting to be hashed. */
+    @Value("${security.hashing.queue-capacity:256}")
+    private int queueCapacity;
+
+    /** Seconds suggested to clients in the {@code Retry-After} header when the queue is full. */
+    @Value("${security.hashing.retry-after-seconds:1}")
+    private long retryAfterSeconds;
+
+    private ThreadPoolExecutor executor;
+
+    /** Limits the bulk passwords in flight to the number of hashing threads. */
+    private Semaphore bulkPermits;
+
+    private Timer hashTimer;
+
+    private Timer waitTimer;
+
+    private Counter rejectedCounter;
+
+    /** Hash checked when there is no stored one, so unknown emails take as long as wrong passwords. */
+    private String unknownUserHash;
+
+    /**
+     * Creates the hashing pool and registers its metrics.
+     */
+    @PostConstruct
+    public void init() {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        executor = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                new CustomizableThreadFactory("password-hash-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        bulkPermits = new Semaphore(threads);
+
+        Gauge.builder("password.hashing.queue.depth", executor, pool -> pool.getQueue().size())
+                .description("Passwords waiting to be hashed")
+                .register(meterRegistry);
+        Gauge.builder("password.hashing.active", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Hashing threads currently busy")
+                .register(meterRegistry);
+        hashTimer = Timer.builder("password.hashing.duration")
+                .description("Time spent encoding a password")
+                .register(meterRegistry);
+        waitTimer = Timer.builder("password.hashing.queue.wait")
+                .description("Time a password waited in the queue before being encoded")
+                .register(meterRegistry);
+        rejectedCounter = Counter.builder("password.hashing.rejected")
+                .description("Passwords rejected because the hashing queue was full")
+                .register(meterRegistry);
+
+        unknownUserHash = encoder.encode("unknown-user");
+
+        log.info("Password hashing pool started with {} threads and a queue of {}", threads, queueCapacity);
+    }
+
+    /**
+     * Schedules a password to be encoded on the hashing pool.
+     *
+     * @param rawPassword the password to encode
+     * @return a future completed with the encoded password
+     * @throws HashingCapacityExceededException if the hashing queue is full
+     */
+    public CompletableFuture<String> encode(CharSequence rawPassword) {
+        long submittedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                waitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                return hashTimer.record(() -> encoder.encode(rawPassword));
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new HashingCapacityExceededException(retryAfterSeconds);
+        }
+    }
+
+    /**
+     * Schedules a password to be checked against its stored hash on the hashing pool. When it matches a hash
+     * produced with outdated parameters, it is encoded again with the current ones in the same task.
+     *
+     * @param rawPassword    the password presented by the user
+     * @param storedPassword the stored hash, or {@code null} for an unknown user
+     * @return a future completed with the hash to keep, which differs from {@code storedPassword} when it was
+     * upgraded, or empty if the password does not match
+     * @throws HashingCapacityExceededException if the hashing queue is full
+     */
+    public CompletableFuture<Optional<String>> verify(CharSequence rawPassword, String storedPassword) {
+        long submittedAt = System.nanoTime();
+        try {
+            return CompletableFuture.supplyAsync(() -> {
+                waitTimer.record(System.nanoTime() - submittedAt, TimeUnit.NANOSECONDS);
+                return hashTimer.record(() -> {
+                    if (storedPassword == null) {
+                        encoder.matches(rawPassword, unknownUserHash);
+                        return Optional.<String>empty();
+                    }
+                    if (!encoder.matches(rawPassword, storedPassword)) {
+                        return Optional.<String>empty();
+                    }
+                    return Optional.of(encoder.upgradeEncoding(storedPassword)
+                            ? encoder.encode(rawPassword)
+                            : storedPassword);
+                });
+            }, executor);
+        } catch (RejectedExecutionException e) {
+            rejectedCounter.increment();
+            throw new HashingCapacityExceededException(retryAfterSeconds);
+        }
+    }
+
+    /**
+     * Schedules a password to be encoded on the hashing pool, or encodes it on the calling thread when the
+     * hashing queue is full. Blocks while as many bulk passwords as there are hashing threads are in flight,
+     * so bulk work never takes the queue slots meant for interactive requests.
+     *
+     * @param rawPassword the password to encode
+     * @return a future completed with the encoded password
+     */
+    public CompletableFuture<String> encodeOrRunInCaller(CharSequence rawPassword) {
+        bulkPermits.acquireUninterruptibly();
+        try {
+            return encode(rawPassword).whenComplete((encoded, error) -> bulkPermits.release());
+        } catch (HashingCapacityExceededException e) {
+            try {
+                return CompletableFuture.completedFuture(hashTimer.record(() -> encoder.encode(rawPassword)));
+            } finally {
+                bulkPermits.release();
+            }
+        }
+    }
+
+    /**
+     * Stops accepting new work and lets queued passwords finish.
+     */
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdown();
+    }
+}
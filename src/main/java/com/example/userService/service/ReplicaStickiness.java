@@ -0,0 +1,76 @@
+package com.example.userService.service;
+
+import com.example.userService.config.ReplicaRoutingDataSource;
+import com.example.userService.entity.User;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Read-your-writes for the replica: reads of an email written in the last {@code datasource.replica.stickiness-ms}
+ * go to the primary, so that a user who just signed up can log in before the replica has caught up.
+ * <p>
+ * Writes are recorded through {@link UserCache#invalidate(String)}, which every write of a user already calls, and
+ * through the invalidations received from other instances, so the window holds on whichever instance the next
+ * request lands. At most {@code datasource.replica.stickiness-max-size} emails are remembered. Without
+ * {@code datasource.replica.enabled}, there is a single database and nothing is recorded.
+ */
+@Component
+public class ReplicaStickiness {
+
+    @Value("${datasource.replica.enabled:false}")
+    private boolean enabled;
+
+    @Value("${datasource.replica.stickiness-ms:5000}")
+    private long stickinessMs;
+
+    @Value("${datasource.replica.stickiness-max-size:100000}")
+    private long maximumSize;
+
+    private Cache<String, Boolean> recentWrites;
+
+    /**
+     * Builds the set of recently written emails.
+     */
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        recentWrites = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(stickinessMs, TimeUnit.MILLISECONDS)
+                .build();
+    }
+
+    /**
+     * Records that the user with this email was just written on the primary.
+     *
+     * @param email the email that changed
+     */
+    public void written(String email) {
+        if (enabled) {
+            recentWrites.put(User.normalizeEmail(email), Boolean.TRUE);
+        }
+    }
+
+    /**
+     * Runs a lookup of an email, on the primary if the email was written within the window.
+     *
+     * @param email  the email looked up
+     * @param lookup the lookup
+     * @param <T>    the type of its result
+     * @return the result of {@code lookup}
+     */
+    public <T> T read(String email, Supplier<T> lookup) {
+        if (enabled && recentWrites.getIfPresent(User.normalizeEmail(email)) != null) {
+            return ReplicaRoutingDataSource.onPrimary(lookup);
+        }
+        return lookup.get();
+    }
+}
@@ -0,0 +1,233 @@
+package com.example.userService.service;
+
+import com.example.userService.dto.BulkSignUpResult;
+import com.example.userService.dto.BulkSignUpResult.Status;
+import com.example.userService.dto.UserRequest;
+import com.example.userService.entity.User;
+import com.example.userService.exceptions.UserAlreadyExistException;
+import com.example.userService.factory.UserServiceFactory;
+import com.example.userService.repository.UserRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.validation.Validator;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
+
+/**
+ * Registers users in bulk from a stream of newline-delimited JSON {@link UserRequest} records.
+ * <p>
+ * The input is read one line at a time and processed in chunks of {@code user.bulk.chunk-size} records:
+ * <ul>
+ *     <li>Each record is validated with the same Bean Validation constraints as {@code /user/sign-up}.</li>
+ *     <li>Emails repeated within the chunk, or already registered, ignoring case, are reported as duplicates;
+ *     registered emails are looked up with one query per chunk, skipping those ruled out by the {@link EmailBloomFilter}.</li>
+ *     <li>Passwords are hashed in parallel on the hashing pool, one per hashing thread at a time so concurrent
+ *     sign-ups keep their queue slots, falling back to the calling thread when it is full.</li>
+ *     <li>Users are mapped with {@link UserServiceFactory} and inserted in JDBC batches, without a token;
+ *     they get one when they first sign in.</li>
+ * </ul>
+ * One {@link BulkSignUpResult} is written per input line as soon as its chunk is done, so neither the request
+ * nor the response is ever held in memory.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserBulkImportService {
+
+    private final UserRepository userRepository;
+    private final UserServiceFactory userServiceFactory;
+    private final PasswordHashingService passwordHashingService;
+    private final UserCache userCache;
+    private final EmailBloomFilter emailBloomFilter;
+    private final Validator validator;
+    private final ObjectMapper objectMapper;
+
+    /** Number of records validated, hashed and inserted together. */
+    @Value("${user.bulk.chunk-size:500}")
+    private int chunkSize;
+
+    /**
+     * Reads sign-up records from {@code input} and writes one result per record to {@code output}.
+     *
+     * @param input  newline-delimited JSON {@link UserRequest} records; blank lines are ignored
+     * @param output where newline-delimited JSON {@link BulkSignUpResult} records are written
+     * @throws IOException if reading the input or writing the output fails
+     */
+    public void importUsers(InputStream input, OutputStream output) throws IOException {
+        var reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8));
+        var writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        var chunk = new ArrayList<Line>(chunkSize);
+        long lineNumber = 0;
+        String text;
+        while ((text = reader.readLine()) != null) {
+            lineNumber++;
+            if (text.isBlank()) {
+                continue;
+            }
+            chunk.add(new Line(lineNumber, text));
+            if (chunk.size() == chunkSize) {
+                write(importChunk(chunk), writer);
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            write(importChunk(chunk), writer);
+        }
+        writer.flush();
+    }
+
+    /**
+     * Validates, de-duplicates, hashes and inserts one chunk of records.
+     *
+     * @param lines the raw records of the chunk
+     * @return the result of every record, in input order
+     */
+    List<BulkSignUpResult> importChunk(List<Line> lines) {
+        var results = new BulkSignUpResult[lines.size()];
+        var accepted = new ArrayList<Integer>(lines.size());
+        var seenEmails = new HashSet<String>();
+
+        for (int i = 0; i < lines.size(); i++) {
+            var line = lines.get(i);
+            line.request = parse(line, results, i);
+            if (line.request == null) {
+                continue;
+            }
+            var errors = validator.validate(line.request).stream()
+                    .map(violation -> violation.getPropertyPath() + ": " + violation.getMessage())
+                    .sorted()
+                    .collect(Collectors.toList());
+            if (!errors.isEmpty()) {
+                results[i] = result(line, Status.INVALID).errors(errors).build();
+            } else if (!seenEmails.add(User.normalizeEmail(line.request.getEmail()))) {
+                results[i] = result(line, Status.DUPLICATE).build();
+            } else {
+                accepted.add(i);
+            }
+        }
+
+        var existing = findExistingEmails(seenEmails);
+        var hashes = new ArrayList<CompletableFuture<String>>(accepted.size());
+        var toInsert = new ArrayList<Integer>(accepted.size());
+        for (int i : accepted) {
+            var line = lines.get(i);
+            if (existing.contains(User.normalizeEmail(line.request.getEmail()))) {
+                results[i] = result(line, Status.DUPLICATE).build();
+            } else {
+                hashes.add(passwordHashingService.encodeOrRunInCaller(line.request.getPassword()));
+                toInsert.add(i);
+            }
+        }
+
+        var users = new ArrayList<User>(toInsert.size());
+        for (int j = 0; j < toInsert.size(); j++) {
+            users.add(userServiceFactory.from(lines.get(toInsert.get(j)).request, hashes.get(j).join()));
+        }
+        var created = insert(users);
+
+        for (int j = 0; j < toInsert.size(); j++) {
+            int i = toInsert.get(j);
+            var user = users.get(j);
+            if (created.get(j)) {
+                emailBloomFilter.put(user.getEmail());
+                userCache.invalidate(user.getEmail());
+                results[i] = result(lines.get(i), Status.CREATED).id(user.getId()).build();
+            } else {
+                results[i] = result(lines.get(i), Status.DUPLICATE).build();
+            }
+        }
+        return List.of(results);
+    }
+
+    private UserRequest parse(Line line, BulkSignUpResult[] results, int index) {
+        try {
+            return objectMapper.readValue(line.text, UserRequest.class);
+        } catch (JsonProcessingException e) {
+            results[index] = result(line, Status.INVALID).errors(List.of("malformed JSON record")).build();
+            return null;
+        }
+    }
+
+    private Set<String> findExistingEmails(Set<String> emails) {
+        var candidates = emails.stream()
+                .filter(emailBloomFilter::mightContain)
+                .collect(Collectors.toList());
+        return candidates.isEmpty() ? Set.of() : userRepository.findExistingNormalizedEmails(candidates);
+    }
+
+    /**
+     * Inserts the users as one batch. If a concurrent sign-up took one of the emails in the meantime,
+     * the batch is rolled back and retried one user at a time, so only the conflicting users are lost.
+     *
+     * @param users the users to insert
+     * @return for each user, whether it was inserted
+     */
+    private List<Boolean> insert(List<User> users) {
+        if (users.isEmpty()) {
+            return List.of();
+        }
+        try {
+            userRepository.insertAll(users);
+            return users.stream().map(user -> Boolean.TRUE).collect(Collectors.toList());
+        } catch (UserAlreadyExistException e) {
+            log.debug("Bulk chunk hit an existing email, inserting its {} users one by one", users.size());
+        }
+        var created = new ArrayList<Boolean>(users.size());
+        for (var user : users) {
+            try {
+                userRepository.insert(user);
+                created.add(Boolean.TRUE);
+            } catch (UserAlreadyExistException e) {
+                created.add(Boolean.FALSE);
+            }
+        }
+        return created;
+    }
+
+    private void write(List<BulkSignUpResult> results, Writer writer) throws IOException {
+        for (var result : results) {
+            writer.write(objectMapper.writeValueAsString(result));
+            writer.write('\n');
+        }
+        writer.flush();
+    }
+
+    private static BulkSignUpResult.BulkSignUpResultBuilder result(Line line, Status status) {
+        return BulkSignUpResult.builder()
+                .line(line.number)
+                .email(line.request != null ? line.request.getEmail() : null)
+                .status(status);
+    }
+
+    /**
+     * A raw input record and, once parsed, its request.
+     */
+    static final class Line {
+        private final long number;
+        private final String text;
+        private UserRequest request;
+
+        Line(long number, String text) {
+            this.number = number;
+            this.text = text;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.example.userService.service;
+
+import com.example.userService.entity.User;
+import com.example.userService.repository.UserRepository;
+import com.github.benmanes.caffeine.cache.AsyncLoadingCache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Optional;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Bounded in-process cache of user lookups by email.
+ * <p>
+ * Backed by Caffeine (W-TinyLFU eviction). Entries are keyed and loaded by the normalized email, so every
+ * spelling of an address shares one entry. Cached users are loaded together with their phones and
+ * must be treated as read-only. Missing emails are cached too, for a shorter time, so repeated
+ * sign-up checks and logins of unknown users do not reach the database.
+ * <p>
+ * While the {@link EmailNormalizationBackfill} is running, a miss is retried on the email as entered, uncached,
+ * and misses are not kept, since the row may simply not be normalized yet.
+ * <p>
+ * With a read replica, lookups read from it, except for emails written moments ago, which the
+ * {@link ReplicaStickiness} sends to the primary. Invalidating an email is what records it as written.
+ * <ul>
+ *     <li>{@code user.cache.enabled} switches the cache off, turning every lookup into a query.</li>
+ *     <li>{@code user.cache.maximum-size} bounds the number of cached emails.</li>
+ *     <li>{@code user.cache.ttl-ms} and {@code user.cache.negative-ttl-ms} set how long found and
+ *     missing emails are kept.</li>
+ * </ul>
+ * Hit rate, evictions and load latency are published as {@code cache.*} metrics tagged {@code cache=users.by-email}.
+ * <p>
+ * Misses are loaded on the {@link BlockingCallExecutor}. By default that is the calling thread, as with a plain
+ * loading cache. On virtual threads the query runs outside the map's {@code synchronized} bin lock, which would
+ * otherwise pin the carrier thread for the whole round trip; concurrent lookups of the same email still wait for
+ * a single query.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserCache {
+
+    /** Repository used to load users on a cache miss. */
+    private final UserRepository userRepository;
+
+    /** Registry where the cache statistics are published. */
+    private final MeterRegistry meterRegistry;
+
+    /** Optional broadcast of invalidations to other instances. */
+    private final ObjectProvider<UserCacheInvalidationPublisher> invalidationPublisher;
+
+    /** Where misses are loaded. */
+    private final BlockingCallExecutor blockingCallExecutor;
+
+    /** Tells whether every stored user can already be found by the normalized email. */
+    private final EmailNormalizationBackfill emailNormalizationBackfill;
+
+    /** Sends the lookups of recently written emails to the primary. */
+    private final ReplicaStickiness replicaStickiness;
+
+    @Value("${user.cache.enabled:true}")
+    private boolean enabled;
+
+    @Value("${user.cache.maximum-size:10000}")
+    private long maximumSize;
+
+    @Value("${user.cache.ttl-ms:300000}")
+    private long ttlMs;
+
+    @Value("${user.cache.negative-ttl-ms:30000}")
+    private long negativeTtlMs;
+
+    private AsyncLoadingCache<String, Optional<User>> cache;
+
+    /**
+     * Builds the cache and registers its metrics.
+     */
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            return;
+        }
+        cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new FoundOrMissingExpiry(TimeUnit.MILLISECONDS.toNanos(ttlMs),
+                        TimeUnit.MILLISECONDS.toNanos(negativeTtlMs), emailNormalizationBackfill::isComplete))
+                .recordStats()
+                .executor(blockingCallExecutor.executor())
+                .buildAsync(this::load);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache.synchronous(), "users.by-email");
+    }
+
+    /**
+     * Retrieves a user and their phones by email, from the cache when possible.
+     *
+     * @param email the email to search for
+     * @return an {@link Optional} containing the user if found, or empty if not
+     */
+    public Optional<User> findByEmail(String email) {
+        var user = findByNormalizedEmail(User.normalizeEmail(email));
+        if (user.isEmpty() && !emailNormalizationBackfill.isComplete()) {
+            return replicaStickiness.read(email, () -> userRepository.findWithPhonesByEmail(email));
+        }
+        return user;
+    }
+
+    /**
+     * Drops the cached entry for an email after it was written, and tells other instances to do the same.
+     *
+     * @param email the email that changed
+     */
+    public void invalidate(String email) {
+        onRemoteInvalidation(email);
+        invalidationPublisher.getIfAvailable(() -> UserCacheInvalidationPublisher.NO_OP).publish(email);
+    }
+
+    /**
+     * Drops the cached entry for an email changed by another instance.
+     *
+     * @param email the email that changed
+     */
+    public void onRemoteInvalidation(String email) {
+        replicaStickiness.written(email);
+        if (enabled) {
+            cache.synchronous().invalidate(User.normalizeEmail(email));
+        }
+    }
+
+    private Optional<User> findByNormalizedEmail(String emailNormalized) {
+        if (!enabled) {
+            return load(emailNormalized);
+        }
+        try {
+            return cache.get(emailNormalized).join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private Optional<User> load(String emailNormalized) {
+        return replicaStickiness.read(emailNormalized,
+                () -> userRepository.findWithPhonesByEmailNormalized(emailNormalized));
+    }
+
+    /**
+     * Keeps found users for the regular time to live and missing emails for the negative one, once misses
+     * can be trusted.
+     */
+    private static final class FoundOrMissingExpiry implements Expiry<String, Optional<User>> {
+
+        private final long ttlNanos;
+        private final long negativeTtlNanos;
+        private final BooleanSupplier cacheMisses;
+
+        private FoundOrMissingExpiry(long ttlNanos, long negativeTtlNanos, BooleanSupplier cacheMisses) {
+            this.ttlNanos = ttlNanos;
+            this.negativeTtlNanos = negativeTtlNanos;
+            this.cacheMisses = cacheMisses;
+        }
+
+        @Override
+        public long expireAfterCreate(String email, Optional<User> user, long currentTime) {
+            if (user.isPresent()) {
+                return ttlNanos;
+            }
+            return cacheMisses.getAsBoolean() ? negativeTtlNanos : 0;
+        }
+
+        @Override
+        public long expireAfterUpdate(String email, Optional<User> user, long currentTime, long currentDuration) {
+            return expireAfterCreate(email, user, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String email, Optional<User> user, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.userService.service;
+
+/**
+ * Hook used by {@link UserCache} to tell other instances of the service that an email changed.
+ * <p>
+ * Declare a bean implementing this interface to broadcast invalidations over the messaging system
+ * of choice; receivers should call {@link UserCache#onRemoteInvalidation(String)}.
+ * Without such a bean, invalidations stay local.
+ */
+@FunctionalInterface
+public interface UserCacheInvalidationPublisher {
+
+    /** Publisher used when no broadcast is configured. */
+    UserCacheInvalidationPublisher NO_OP = email -> { };
+
+    /**
+     * Announces that the cached entry for an email is stale.
+     *
+     * @param email the email whose entry must be dropped
+     */
+    void publish(String email);
+}
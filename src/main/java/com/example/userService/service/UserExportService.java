@@ -0,0 +1,193 @@
+package com.example.userService.service;
+
+import com.example.userService.dto.PhoneDto;
+import com.example.userService.dto.UserResponse;
+import com.example.userService.entity.Phone;
+import com.example.userService.entity.User;
+import com.example.userService.exceptions.UnsupportedExportFormatException;
+import com.example.userService.factory.UserServiceDtoFactory;
+import com.example.userService.repository.UserRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.persistence.EntityManager;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Writes every user, with their phones, as newline-delimited JSON or CSV.
+ * <p>
+ * Memory use does not depend on the number of users:
+ * <ul>
+ *     <li>Users are read in a read-only transaction through the forward-only cursor of {@link UserRepository#streamAll()}.</li>
+ *     <li>Every {@code user.export.window-size} users, their phones are loaded with one query, the window is written
+ *     and flushed, and the persistence context is cleared so the written entities are detached.</li>
+ *     <li>Records are mapped with {@link UserServiceDtoFactory#toExportResponse}, so passwords and tokens are never exported.</li>
+ * </ul>
+ */
+@Service
+@RequiredArgsConstructor
+public class UserExportService {
+
+    private static final String CSV_HEADER = "id,email,name,created,lastLogin,active,phones";
+
+    private final UserRepository userRepository;
+    private final UserServiceDtoFactory userServiceDtoFactory;
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+
+    /** Number of users whose phones are loaded, and who are written and detached, together. */
+    @Value("${user.export.window-size:500}")
+    private int windowSize;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    /**
+     * Supported export formats.
+     */
+    @Getter
+    @RequiredArgsConstructor
+    public enum Format {
+        NDJSON(MediaType.APPLICATION_NDJSON),
+        CSV(new MediaType("text", "csv", StandardCharsets.UTF_8));
+
+        private final MediaType mediaType;
+
+        /**
+         * Resolves a format from its case-insensitive name.
+         *
+         * @param name {@code ndjson} or {@code csv}
+         * @return the matching format
+         * @throws UnsupportedExportFormatException if no format has that name
+         */
+        public static Format from(String name) {
+            try {
+                return valueOf(name.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new UnsupportedExportFormatException();
+            }
+        }
+    }
+
+    @PostConstruct
+    public void init() {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * Writes all users to {@code output}.
+     *
+     * @param format the output format
+     * @param output where the users are written; it is flushed after every window
+     * @throws IOException if writing fails
+     */
+    public void exportUsers(Format format, OutputStream output) throws IOException {
+        var writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        if (format == Format.CSV) {
+            writer.write(CSV_HEADER);
+            writer.write('\n');
+        }
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                var window = new ArrayList<User>(windowSize);
+                try (var users = userRepository.streamAll()) {
+                    users.forEach(user -> {
+                        window.add(user);
+                        if (window.size() == windowSize) {
+                            writeWindow(window, format, writer);
+                        }
+                    });
+                }
+                writeWindow(window, format, writer);
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        writer.flush();
+    }
+
+    private void writeWindow(List<User> window, Format format, Writer writer) {
+        if (window.isEmpty()) {
+            return;
+        }
+        var ids = window.stream().map(User::getId).collect(Collectors.toList());
+        Map<UUID, Set<Phone>> phonesByUser = userRepository.findPhonesByUserIds(ids).stream()
+                .collect(Collectors.groupingBy(phone -> phone.getUser().getId(), Collectors.toCollection(HashSet::new)));
+        try {
+            for (var user : window) {
+                var response = userServiceDtoFactory.toExportResponse(user, phonesByUser.getOrDefault(user.getId(), Set.of()));
+                if (format == Format.CSV) {
+                    writeCsv(response, writer);
+                } else {
+                    writer.write(objectMapper.writeValueAsString(response));
+                }
+                writer.write('\n');
+            }
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        window.clear();
+        entityManager.clear();
+    }
+
+    private static void writeCsv(UserResponse user, Writer writer) throws IOException {
+        var phones = user.getPhoneList().stream()
+                .map(UserExportService::formatPhone)
+                .sorted()
+                .collect(Collectors.joining(";"));
+        writer.write(csv(user.getId()));
+        writer.write(',');
+        writer.write(csv(user.getEmail()));
+        writer.write(',');
+        writer.write(csv(user.getName()));
+        writer.write(',');
+        writer.write(csv(user.getCreated()));
+        writer.write(',');
+        writer.write(csv(user.getLastLogin()));
+        writer.write(',');
+        writer.write(String.valueOf(user.isActive()));
+        writer.write(',');
+        writer.write(csv(phones));
+    }
+
+    private static String formatPhone(PhoneDto phone) {
+        return phone.getNumber() + ":" + phone.getCityCode() + ":" + phone.getCountryCode();
+    }
+
+    /**
+     * Formats a CSV field, quoting it when it contains a separator, a quote or a line break.
+     */
+    private static String csv(Object value) {
+        if (value == null) {
+            return "";
+        }
+        var text = value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            return text;
+        }
+        return '"' + text.replace("\"", "\"\"") + '"';
+    }
+}
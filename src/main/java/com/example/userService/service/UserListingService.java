@@ -0,0 +1,59 @@
+package com.example.userService.service;
+
+import com.example.userService.dto.UserPage;
+import com.example.userService.exceptions.InvalidCursorException;
+import com.example.userService.factory.UserServiceDtoFactory;
+import com.example.userService.repository.UserCursor;
+import com.example.userService.repository.UserRepository;
+import com.example.userService.repository.UserSearchCriteria;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.stream.Collectors;
+
+/**
+ * Lists users with keyset pagination on {@code (created, id)}.
+ * <p>
+ * Each page is read with one query for the users plus batched queries for their phones, and the position
+ * after it is returned as an opaque cursor, so page latency does not grow with the depth of the listing.
+ */
+@Service
+@RequiredArgsConstructor
+public class UserListingService {
+
+    private final UserRepository userRepository;
+    private final UserServiceDtoFactory userServiceDtoFactory;
+
+    /** Upper bound for the page size requested by clients. */
+    @Value("${user.listing.max-page-size:200}")
+    private int maxPageSize;
+
+    /**
+     * Returns the page of users following {@code cursor}.
+     *
+     * @param criteria filters to apply
+     * @param cursor   the cursor returned with the previous page, or {@code null} for the first page
+     * @param limit    requested page size, capped to {@code user.listing.max-page-size}
+     * @return the users of the page and, unless it is the last one, the cursor of the next page
+     * @throws InvalidCursorException if the cursor was not issued by this service
+     */
+    @Transactional(readOnly = true)
+    public UserPage listUsers(UserSearchCriteria criteria, String cursor, int limit) {
+        int pageSize = Math.max(1, Math.min(limit, maxPageSize));
+        var after = cursor == null || cursor.isBlank() ? null : UserCursor.decode(cursor);
+
+        var users = userRepository.findPage(criteria, after, pageSize + 1);
+        boolean hasNext = users.size() > pageSize;
+        var page = hasNext ? users.subList(0, pageSize) : users;
+
+        var last = page.isEmpty() ? null : page.get(page.size() - 1);
+        return UserPage.builder()
+                .users(page.stream()
+                        .map(user -> userServiceDtoFactory.toExportResponse(user, user.getPhones()))
+                        .collect(Collectors.toList()))
+                .nextCursor(hasNext ? new UserCursor(last.getCreated(), last.getId()).encode() : null)
+                .build();
+    }
+}
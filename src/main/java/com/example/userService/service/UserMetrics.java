@@ -0,0 +1,100 @@
+package com.example.userService.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters shared by the user operations.
+ * <ul>
+ *     <li>{@code user.operation.stage}: time of each stage of sign-up, login, sign-in and refresh, tagged with
+ *     {@code operation} and {@code stage}, with percentiles and a histogram for Prometheus.</li>
+ *     <li>{@code user.errors}: requests rejected by the {@code GlobalExceptionHandler}, tagged with {@code reason}.</li>
+ *     <li>{@code user.throttled}: requests rejected by the {@code RateLimitFilter}, tagged with {@code operation}
+ *     and the exceeded {@code limit}.</li>
+ * </ul>
+ * Meters are created on first use and cached, so recording does not allocate.
+ */
+@Component
+@RequiredArgsConstructor
+public class UserMetrics {
+
+    public static final String SIGN_UP = "signup";
+    public static final String LOGIN = "login";
+    public static final String SIGN_IN = "signin";
+    public static final String REFRESH = "refresh";
+
+    public static final String VALIDATION = "validation";
+    public static final String HASHING = "hashing";
+    public static final String JWT_SIGN = "jwt.sign";
+    public static final String DB_LOOKUP = "db.lookup";
+    public static final String DB_WRITE = "db.write";
+
+    private final MeterRegistry meterRegistry;
+
+    private final Map<String, Timer> stageTimers = new ConcurrentHashMap<>();
+
+    private final Map<String, Counter> errorCounters = new ConcurrentHashMap<>();
+
+    private final Map<String, Counter> throttledCounters = new ConcurrentHashMap<>();
+
+    /**
+     * @param operation one of {@link #SIGN_UP}, {@link #LOGIN}, {@link #SIGN_IN} or {@link #REFRESH}
+     * @param stage     the stage of the operation, such as {@link #HASHING}
+     * @return the timer of that stage
+     */
+    public Timer stage(String operation, String stage) {
+        return stageTimers.computeIfAbsent(operation + ' ' + stage, key -> Timer.builder("user.operation.stage")
+                .description("Time spent in each stage of the user operations")
+                .tag("operation", operation)
+                .tag("stage", stage)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .publishPercentileHistogram()
+                .register(meterRegistry));
+    }
+
+    /**
+     * Records a stage that started at {@code startNanos}, as returned by {@link System#nanoTime()}.
+     *
+     * @param operation  the operation
+     * @param stage      the stage
+     * @param startNanos when the stage started
+     */
+    public void recordSince(String operation, String stage, long startNanos) {
+        stage(operation, stage).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Counts a rejected request.
+     *
+     * @param reason why it was rejected, such as {@code already_exists}
+     */
+    public void error(String reason) {
+        errorCounters.computeIfAbsent(reason, key -> Counter.builder("user.errors")
+                .description("Requests rejected by the exception handler")
+                .tag("reason", reason)
+                .register(meterRegistry))
+                .increment();
+    }
+
+    /**
+     * Counts a request rejected by a rate limit.
+     *
+     * @param operation the operation, {@link #LOGIN}, {@link #SIGN_IN} or {@link #SIGN_UP}
+     * @param limit     the exceeded limit, {@code client} or {@code account}
+     */
+    public void throttled(String operation, String limit) {
+        throttledCounters.computeIfAbsent(operation + ' ' + limit, key -> Counter.builder("user.throttled")
+                .description("Requests rejected by the rate limits")
+                .tag("operation", operation)
+                .tag("limit", limit)
+                .register(meterRegistry))
+                .increment();
+    }
+}
@@ -1,18 +1,30 @@
 package com.example.userService.service;
 
+import com.example.userService.dto.LoginRequest;
+import com.example.userService.dto.TokenResponse;
 import com.example.userService.dto.UserRequest;
 import com.example.userService.dto.UserResponse;
+import com.example.userService.entity.User;
+import com.example.userService.exceptions.InvalidCredentialsException;
 import com.example.userService.exceptions.UserAlreadyExistException;
 import com.example.userService.exceptions.UserNotFoundException;
 import com.example.userService.repository.UserRepository;
+import com.example.userService.security.JwtFilter;
 import com.example.userService.security.JwtUtil;
+import com.example.userService.security.RefreshTokenStore;
+import com.example.userService.security.TokenRevocationStore;
 import com.example.userService.factory.UserServiceDtoFactory;
 import com.example.userService.factory.UserServiceFactory;
+import io.jsonwebtoken.Claims;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 import utils.JwtHelper;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Implementation of the {@link IUserService} interface.
@@ -36,58 +48,251 @@ public class UserServiceImpl implements IUserService {
     private final UserServiceFactory userServiceFactory;
     /** Factory for converting User entities into response DTOs. */
     private final UserServiceDtoFactory userServiceDtoFactory;
+    /** Pool that encodes passwords off the request thread. */
+    private final PasswordHashingService passwordHashingService;
+    /** Buffer that writes login updates in the background. */
+    private final LoginWriteBehind loginWriteBehind;
+    /** Near cache of user lookups by email. */
+    private final UserCache userCache;
+    /** Filter of registered emails that lets new emails skip the existence check. */
+    private final EmailBloomFilter emailBloomFilter;
+    /** Denylist fed by logouts. */
+    private final TokenRevocationStore revocationStore;
+    /** Sessions of rotating refresh tokens. */
+    private final RefreshTokenStore refreshTokenStore;
+    /** Stage timers of each operation. */
+    private final UserMetrics userMetrics;
+    /** Where the work after hashing, including the insert, continues off the hashing pool. */
+    private final BlockingCallExecutor blockingCallExecutor;
 
     /**
      * Creates a new user in the system.
      * <p>
-     * - Validates that the user does not already exist.<br>
+     * - Unless the {@link EmailBloomFilter} rules the email out, rejects emails already registered
+     * through the {@link UserCache}, before paying for password hashing.<br>
+     * - Encodes the password on the hashing pool.<br>
      * - Converts request to entity using factory.<br>
-     * - Generates a JWT token and saves the user.<br>
-     * - Returns a DTO with relevant response information.
+     * - Starts a refresh-token session, generates a JWT token for it and inserts the user;
+     * concurrent duplicates are rejected by the email unique constraint.<br>
+     * - Adds the new email to the Bloom filter and invalidates its cached lookup.<br>
+     * - Returns a DTO with relevant response information and the refresh token.<br>
+     * Everything after hashing runs on the {@link BlockingCallExecutor}, on its platform pool by default or on
+     * a virtual thread, so that the insert does not hold a hashing thread while it waits for the database.<br>
+     * The existence check, hashing, token signing and insert are timed as stages of {@link UserMetrics#SIGN_UP}.
      *
      * @param request the incoming user registration data
-     * @return a {@link UserResponse} containing created user info
+     * @return a future completed with a {@link UserResponse} containing created user info,
+     * or completed exceptionally with {@link UserAlreadyExistException} if the email is already registered
      * @throws UserAlreadyExistException if the user already exists by email
+     * @throws com.example.userService.exceptions.HashingCapacityExceededException if the hashing queue is full
      */
     @Override
-    public UserResponse createUser(UserRequest request) {
+    public CompletableFuture<UserResponse> createUser(UserRequest request) {
 
-        userRepository.findByEmail(request.getEmail())
-                .ifPresent(user -> {
-                    throw new UserAlreadyExistException();
-                });
+        if (emailBloomFilter.mightContain(request.getEmail())) {
+            long lookupStart = System.nanoTime();
+            var existing = userCache.findByEmail(request.getEmail());
+            userMetrics.recordSince(UserMetrics.SIGN_UP, UserMetrics.DB_LOOKUP, lookupStart);
+            if (existing.isPresent()) {
+                throw new UserAlreadyExistException();
+            }
+        }
 
-        var user = userServiceFactory.from(request);
-        var token = jwtUtil.generateToken(user.getEmail());
-        user.setToken(token);
-        userRepository.save(user);
+        long hashingStart = System.nanoTime();
+        var encoded = passwordHashingService.encode(request.getPassword());
+        return blockingCallExecutor.supplyAfter(encoded, encodedPassword -> {
+            userMetrics.recordSince(UserMetrics.SIGN_UP, UserMetrics.HASHING, hashingStart);
+            var user = userServiceFactory.from(request, encodedPassword);
+            var session = refreshTokenStore.issue(user.getEmail());
+            long signStart = System.nanoTime();
+            var token = jwtUtil.generateToken(user.getEmail(), session.getSessionId());
+            userMetrics.recordSince(UserMetrics.SIGN_UP, UserMetrics.JWT_SIGN, signStart);
+            user.setToken(token);
+            long writeStart = System.nanoTime();
+            try {
+                userRepository.insert(user);
+            } catch (RuntimeException e) {
+                refreshTokenStore.revokeSession(session.getSessionId());
+                throw e;
+            } finally {
+                userMetrics.recordSince(UserMetrics.SIGN_UP, UserMetrics.DB_WRITE, writeStart);
+            }
+            emailBloomFilter.put(user.getEmail());
+            userCache.invalidate(user.getEmail());
 
-        return this.userServiceDtoFactory.toCreateResponse(user);
+            var response = this.userServiceDtoFactory.toCreateResponse(user);
+            response.setRefreshToken(session.getToken());
+            return response;
+        });
     }
 
     /**
      * Authenticates a user using a JWT token found in the Authorization header.
      * <p>
-     * - Extracts the token from the header.<br>
-     * - Validates the token and retrieves the associated user.<br>
-     * - Updates last login and issues a new token.<br>
-     * - Returns a login response DTO.
+     * - Reuses the claims verified by {@link JwtFilter}, or extracts and validates the token from the header.<br>
+     * - Retrieves the associated user and phones through the {@link UserCache}.<br>
+     * - Starts a refresh-token session and issues a new token for it; last login and token are written later
+     * by {@link LoginWriteBehind}.<br>
+     * - Returns a login response DTO with the refresh token.<br>
+     * The token is resolved on the calling thread, where the request attributes are available; the rest runs on
+     * the {@link BlockingCallExecutor}, so on virtual threads the request thread is released during the lookup.
      *
      * @param authHeader the HTTP Authorization header with "Bearer &lt;token&gt;"
-     * @return a {@link UserResponse} with updated login info and new token
-     * @throws UserNotFoundException if the user is not found
+     * @return a future completed with a {@link UserResponse} with updated login info and new token,
+     * or completed exceptionally with {@link UserNotFoundException} if the user is not found
      */
     @Override
-    public UserResponse login(String authHeader) {
+    public CompletableFuture<UserResponse> login(String authHeader) {
 
-        var email = jwtUtil.getUsernameFromToken(JwtHelper.getTokenFromBearer(authHeader));
-        var user = userRepository.findByEmail(email)
-                .orElseThrow(UserNotFoundException::new);
+        var email = resolveSubject(authHeader);
+        return blockingCallExecutor.supply(() -> completeLogin(email));
+    }
+
+    private UserResponse completeLogin(String email) {
+        long lookupStart = System.nanoTime();
+        var found = userCache.findByEmail(email);
+        userMetrics.recordSince(UserMetrics.LOGIN, UserMetrics.DB_LOOKUP, lookupStart);
+        var user = found.orElseThrow(UserNotFoundException::new);
+        return issueLogin(UserMetrics.LOGIN, user, email);
+    }
+
+    /**
+     * Authenticates a user with their email and password.
+     * <p>
+     * - Retrieves the user through the {@link UserCache}.<br>
+     * - Checks the password on the hashing pool; unknown emails are checked against a fixed hash, so they take
+     * as long as wrong passwords.<br>
+     * - When the stored hash uses an outdated algorithm or cost, stores the password re-encoded with the current
+     * parameters, so hashes are upgraded as users sign in.<br>
+     * - Starts a refresh-token session and issues a new token for it, like {@link #login(String)}.<br>
+     * This is the way back in for users without a valid token, such as after {@link #logoutAll(String)}.
+     *
+     * @param request the email and password
+     * @return a future completed with a {@link UserResponse} with updated login info and new token,
+     * or completed exceptionally with {@link InvalidCredentialsException} if the email or password is wrong
+     * @throws com.example.userService.exceptions.HashingCapacityExceededException if the hashing queue is full
+     */
+    @Override
+    public CompletableFuture<UserResponse> signIn(LoginRequest request) {
+        long lookupStart = System.nanoTime();
+        var found = userCache.findByEmail(request.getEmail());
+        userMetrics.recordSince(UserMetrics.SIGN_IN, UserMetrics.DB_LOOKUP, lookupStart);
+
+        long hashingStart = System.nanoTime();
+        var verified = passwordHashingService.verify(request.getPassword(), found.map(User::getPassword).orElse(null));
+        return blockingCallExecutor.supplyAfter(verified, password -> {
+            userMetrics.recordSince(UserMetrics.SIGN_IN, UserMetrics.HASHING, hashingStart);
+            var user = found.filter(match -> password.isPresent())
+                    .orElseThrow(InvalidCredentialsException::new);
+            if (!password.get().equals(user.getPassword())) {
+                long writeStart = System.nanoTime();
+                userRepository.updatePassword(user.getId(), password.get());
+                userMetrics.recordSince(UserMetrics.SIGN_IN, UserMetrics.DB_WRITE, writeStart);
+                userCache.invalidate(user.getEmail());
+            }
+            return issueLogin(UserMetrics.SIGN_IN, user, user.getEmail());
+        });
+    }
+
+    /**
+     * Starts a refresh-token session for an authenticated user and issues a token for it.
+     *
+     * @param operation the operation whose stages are timed
+     * @param user      the authenticated user
+     * @param email     the subject of the new tokens
+     * @return the login response with both tokens
+     */
+    private UserResponse issueLogin(String operation, User user, String email) {
+        var lastLogin = LocalDateTime.now();
+        var session = refreshTokenStore.issue(email);
+        long signStart = System.nanoTime();
+        var token = jwtUtil.generateToken(email, session.getSessionId());
+        userMetrics.recordSince(operation, UserMetrics.JWT_SIGN, signStart);
 
-        user.setLastLogin(LocalDateTime.now());
-        user.setToken(jwtUtil.generateToken(email));
+        loginWriteBehind.enqueue(user.getId(), lastLogin, token);
+        var response = this.userServiceDtoFactory.toLoginResponse(user, lastLogin, token);
+        response.setRefreshToken(session.getToken());
+        return response;
+    }
+
+    /**
+     * Exchanges a refresh token for a new access token and the next refresh token of its session.
+     * <p>
+     * Neither the database nor the user cache is touched: the session already identifies the user.
+     *
+     * @param refreshToken the refresh token from the previous sign-up, login or refresh
+     * @return the new token pair
+     * @throws com.example.userService.exceptions.InvalidRefreshTokenException if the refresh token cannot be used
+     */
+    @Override
+    public TokenResponse refreshToken(String refreshToken) {
+        var session = refreshTokenStore.rotate(refreshToken);
+        long signStart = System.nanoTime();
+        var token = jwtUtil.generateToken(session.getSubject(), session.getSessionId());
+        userMetrics.recordSince(UserMetrics.REFRESH, UserMetrics.JWT_SIGN, signStart);
+        return TokenResponse.builder()
+                .token(token)
+                .refreshToken(session.getToken())
+                .expiresIn(jwtUtil.getExpiration() / 1000)
+                .build();
+    }
 
-        userRepository.save(user);
-        return this.userServiceDtoFactory.toLoginResponse(user);
+    /**
+     * Revokes the token used for this request, so it is rejected from now on, and the refresh-token session
+     * it was issued for.
+     *
+     * @param authHeader the HTTP Authorization header with "Bearer &lt;token&gt;"
+     */
+    @Override
+    public void logout(String authHeader) {
+        var claims = resolveClaims(authHeader);
+        revocationStore.revoke(claims);
+        var sessionId = claims.get(JwtUtil.SESSION_CLAIM, String.class);
+        if (sessionId != null) {
+            refreshTokenStore.revokeSession(sessionId);
+        }
+    }
+
+    /**
+     * Revokes every token issued so far to the user of this request, including the one used for it,
+     * and all of the user's refresh-token sessions. Tokens issued afterwards, such as by {@link #signIn(LoginRequest)},
+     * are valid even within the same second.
+     *
+     * @param authHeader the HTTP Authorization header with "Bearer &lt;token&gt;"
+     */
+    @Override
+    public void logoutAll(String authHeader) {
+        var claims = resolveClaims(authHeader);
+        var subject = claims.getSubject();
+        revocationStore.revoke(claims);
+        revocationStore.revokeAll(subject, Instant.now());
+        refreshTokenStore.revokeAll(subject);
+    }
+
+    /**
+     * Returns the claims already verified for the current request, or verifies the token from the header.
+     *
+     * @param authHeader the HTTP Authorization header with "Bearer &lt;token&gt;"
+     * @return the verified claims
+     */
+    private Claims resolveClaims(String authHeader) {
+        var attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            var claims = attributes.getAttribute(JwtFilter.CLAIMS_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
+            if (claims instanceof Claims) {
+                return (Claims) claims;
+            }
+        }
+        return jwtUtil.getClaimsFromToken(JwtHelper.getTokenFromBearer(authHeader));
+    }
+
+    /**
+     * Resolves the token subject, preferring the claims already verified for the current request.
+     *
+     * @param authHeader the HTTP Authorization header with "Bearer &lt;token&gt;"
+     * @return the email stored as the token subject
+     */
+    private String resolveSubject(String authHeader) {
+        return resolveClaims(authHeader).getSubject();
     }
-}
\ No newline at end of file
+}
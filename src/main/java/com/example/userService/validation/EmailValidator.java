@@ -0,0 +1,74 @@
+package com.example.userService.validation;
+
+import javax.validation.ConstraintValidator;
+import javax.validation.ConstraintValidatorContext;
+
+/**
+ * Checks {@link ValidEmail} by scanning the characters once, without splitting the address.
+ * <p>
+ * Anything longer than the longest valid address is rejected before the scan.
+ */
+public class EmailValidator implements ConstraintValidator<ValidEmail, CharSequence> {
+
+    static final int MAX_LOCAL_PART_LENGTH = 64;
+    static final int MAX_DOMAIN_LENGTH = 255;
+    static final int MAX_LENGTH = MAX_LOCAL_PART_LENGTH + 1 + MAX_DOMAIN_LENGTH;
+    private static final int MAX_LABEL_LENGTH = 63;
+
+    @Override
+    public boolean isValid(CharSequence value, ConstraintValidatorContext context) {
+        return value == null || isValid(value);
+    }
+
+    /**
+     * @param email the address to check, not {@code null}
+     * @return whether it is a well-formed address within the allowed characters
+     */
+    public static boolean isValid(CharSequence email) {
+        int length = email.length();
+        if (length > MAX_LENGTH) {
+            return false;
+        }
+        int at = -1;
+        for (int i = 0; i < length; i++) {
+            char c = email.charAt(i);
+            if (c == '@') {
+                at = i;
+                break;
+            }
+            if (c == '.') {
+                if (i == 0 || email.charAt(i - 1) == '.') {
+                    return false;
+                }
+            } else if (!isLetterOrDigit(c) && c != '+' && c != '_' && c != '-') {
+                return false;
+            }
+        }
+        if (at < 1 || at > MAX_LOCAL_PART_LENGTH || email.charAt(at - 1) == '.') {
+            return false;
+        }
+        int domainLength = length - at - 1;
+        if (domainLength < 1 || domainLength > MAX_DOMAIN_LENGTH) {
+            return false;
+        }
+        int labelStart = at + 1;
+        for (int i = labelStart; i <= length; i++) {
+            char c = i < length ? email.charAt(i) : '.';
+            if (c == '.') {
+                int labelLength = i - labelStart;
+                if (labelLength < 1 || labelLength > MAX_LABEL_LENGTH
+                        || email.charAt(labelStart) == '-' || email.charAt(i - 1) == '-') {
+                    return false;
+                }
+                labelStart = i + 1;
+            } else if (!isLetterOrDigit(c) && c != '-') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLetterOrDigit(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9';
+    }
+}
@@ -0,0 +1,49 @@
+package com.example.userService.validation;
+
+import javax.validation.ConstraintValidator;
+import javax.validation.ConstraintValidatorContext;
+
+/**
+ * Checks {@link ValidPassword} by scanning the characters once.
+ * <p>
+ * The length is checked before anything else, so an oversized password costs nothing, where the lookaheads
+ * of the former pattern backtracked over the whole input.
+ */
+public class PasswordValidator implements ConstraintValidator<ValidPassword, CharSequence> {
+
+    static final int MIN_LENGTH = 8;
+    static final int MAX_LENGTH = 12;
+    private static final int MIN_DIGITS = 2;
+
+    @Override
+    public boolean isValid(CharSequence value, ConstraintValidatorContext context) {
+        return value == null || isValid(value);
+    }
+
+    /**
+     * @param password the password to check, not {@code null}
+     * @return whether it has the required length, characters and character classes
+     */
+    public static boolean isValid(CharSequence password) {
+        int length = password.length();
+        if (length < MIN_LENGTH || length > MAX_LENGTH) {
+            return false;
+        }
+        boolean lower = false;
+        boolean upper = false;
+        int digits = 0;
+        for (int i = 0; i < length; i++) {
+            char c = password.charAt(i);
+            if (c >= 'a' && c <= 'z') {
+                lower = true;
+            } else if (c >= 'A' && c <= 'Z') {
+                upper = true;
+            } else if (c >= '0' && c <= '9') {
+                digits++;
+            } else {
+                return false;
+            }
+        }
+        return lower && upper && digits >= MIN_DIGITS;
+    }
+}
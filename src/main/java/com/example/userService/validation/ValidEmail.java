@@ -0,0 +1,36 @@
+package com.example.userService.validation;
+
+import javax.validation.Constraint;
+import javax.validation.Payload;
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.PARAMETER;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * The annotated value must be an email address made of ASCII letters, digits and {@code +_.-}.
+ * <p>
+ * Accepts exactly what {@code @Email(regexp = "^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$")} did, that is the pattern
+ * combined with the checks Hibernate Validator applies to every {@code @Email}:
+ * <ul>
+ *     <li>a local part of at most 64 characters, made of dot-separated non-empty atoms;</li>
+ *     <li>a domain of at most 255 characters, made of dot-separated labels of 1 to 63 characters that neither
+ *     start nor end with a dash.</li>
+ * </ul>
+ * {@code null} is valid.
+ */
+@Documented
+@Constraint(validatedBy = EmailValidator.class)
+@Target({FIELD, PARAMETER})
+@Retention(RUNTIME)
+public @interface ValidEmail {
+
+    String message() default "{javax.validation.constraints.Email.message}";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
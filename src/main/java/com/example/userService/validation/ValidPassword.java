@@ -0,0 +1,31 @@
+package com.example.userService.validation;
+
+import javax.validation.Constraint;
+import javax.validation.Payload;
+import java.lang.annotation.Documented;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.PARAMETER;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+/**
+ * The annotated password must be 8 to 12 ASCII letters and digits, with at least one lowercase letter,
+ * one uppercase letter and two digits.
+ * <p>
+ * Accepts exactly what {@code ^(?=.*[a-z])(?=.*[A-Z])(?=(?:.*\d.*){2})[A-Za-z\d]{8,12}$} did, in one pass
+ * without a regular expression. {@code null} is valid.
+ */
+@Documented
+@Constraint(validatedBy = PasswordValidator.class)
+@Target({FIELD, PARAMETER})
+@Retention(RUNTIME)
+public @interface ValidPassword {
+
+    String message() default "{password.format}";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
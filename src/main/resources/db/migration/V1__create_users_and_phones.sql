@@ -0,0 +1,34 @@
+-- Schema of the User and Phone entities, in SQL that PostgreSQL and H2 (MODE=PostgreSQL) both accept.
+
+CREATE TABLE users (
+    id         UUID          NOT NULL,
+    email      VARCHAR(255)  NOT NULL,
+    password   VARCHAR(255),
+    name       VARCHAR(255),
+    token      VARCHAR(1024),
+    is_active  BOOLEAN       NOT NULL,
+    created    TIMESTAMP,
+    last_login TIMESTAMP,
+    CONSTRAINT pk_users PRIMARY KEY (id),
+    -- Backs findByEmail, findWithPhonesByEmail and the duplicate sign-up check.
+    CONSTRAINT uk_user_email UNIQUE (email)
+);
+
+-- Keyset pagination of the listing and the export order.
+CREATE INDEX idx_user_created_id ON users (created, id);
+
+CREATE INDEX idx_user_name ON users (name);
+
+CREATE TABLE phone (
+    id           UUID          NOT NULL,
+    number       BIGINT,
+    city_code    INTEGER,
+    country_code VARCHAR(255),
+    user_id      UUID,
+    CONSTRAINT pk_phone PRIMARY KEY (id),
+    CONSTRAINT fk_phone_user FOREIGN KEY (user_id) REFERENCES users (id),
+    -- Also serves the foreign key and the batch loading of phones by user_id.
+    CONSTRAINT uk_phone_user_number UNIQUE (user_id, number, city_code, country_code)
+);
+
+CREATE INDEX idx_phone_country_code_user ON phone (country_code, user_id);
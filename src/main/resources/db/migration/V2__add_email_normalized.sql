@@ -0,0 +1,4 @@
+-- Case-insensitive identity of each user. Left nullable: rows stored before this version are filled in by the
+-- email backfill job, and the unique index is created per vendor in V2_1.
+
+ALTER TABLE users ADD COLUMN email_normalized VARCHAR(255);
@@ -0,0 +1,39 @@
+package com.example.userService;
+
+import com.example.userService.security.AdaptivePasswordEncoder;
+import com.example.userService.security.AdaptivePasswordEncoder.Algorithm;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdaptivePasswordEncoderTest {
+
+    private static final String PASSWORD = "a2asfGfdfdf4";
+
+    @Test
+    void shouldMatchHashesFromEveryAlgorithm() {
+        var current = new AdaptivePasswordEncoder(Algorithm.BCRYPT, 4, 1024);
+        var legacy = new BCryptPasswordEncoder(4).encode(PASSWORD);
+        var pbkdf2 = new AdaptivePasswordEncoder(Algorithm.PBKDF2, 1000, 1024).encode(PASSWORD);
+        var argon2 = new AdaptivePasswordEncoder(Algorithm.ARGON2, 1, 1024).encode(PASSWORD);
+
+        assertTrue(current.matches(PASSWORD, legacy));
+        assertTrue(current.matches(PASSWORD, pbkdf2));
+        assertTrue(current.matches(PASSWORD, argon2));
+        assertFalse(current.matches("wrongPassword1", pbkdf2));
+    }
+
+    @Test
+    void shouldRequestUpgradeWhenAlgorithmOrCostChanges() {
+        var current = new AdaptivePasswordEncoder(Algorithm.BCRYPT, 5, 1024);
+
+        assertFalse(current.upgradeEncoding(current.encode(PASSWORD)));
+        assertTrue(current.upgradeEncoding(new BCryptPasswordEncoder(5).encode(PASSWORD)));
+        assertTrue(current.upgradeEncoding(new AdaptivePasswordEncoder(Algorithm.BCRYPT, 4, 1024).encode(PASSWORD)));
+        assertTrue(current.upgradeEncoding(new AdaptivePasswordEncoder(Algorithm.PBKDF2, 1000, 1024).encode(PASSWORD)));
+
+        var pbkdf2 = new AdaptivePasswordEncoder(Algorithm.PBKDF2, 2000, 1024);
+        assertTrue(pbkdf2.upgradeEncoding(new AdaptivePasswordEncoder(Algorithm.PBKDF2, 1000, 1024).encode(PASSWORD)));
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.userService;
+
+import com.example.userService.service.ConcurrentBloomFilter;
+import com.example.userService.service.EmailBloomFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.TransactionDefinition;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmailBloomFilterTest {
+
+    @Test
+    void shouldHaveNoFalseNegativesAndBoundedFalsePositives() {
+        var filter = new ConcurrentBloomFilter(10_000, 0.01, 1 << 20);
+        IntStream.range(0, 10_000).parallel().forEach(i -> filter.put("user" + i + "@example.com"));
+
+        assertTrue(IntStream.range(0, 10_000).allMatch(i -> filter.mightContain("user" + i + "@example.com")));
+        long falsePositives = IntStream.range(0, 100_000)
+                .filter(i -> filter.mightContain("other" + i + "@example.com"))
+                .count();
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+    }
+
+    @Test
+    void shouldAnswerMaybeUntilWarmedUp() {
+        var dataSource = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+        var jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE users (email VARCHAR(255))");
+        jdbcTemplate.update("INSERT INTO users (email) VALUES ('stored@example.com')");
+
+        var readOnlyScan = new AtomicBoolean();
+        var transactionManager = new DataSourceTransactionManager(dataSource) {
+            @Override
+            protected void doBegin(Object transaction, TransactionDefinition definition) {
+                readOnlyScan.set(definition.isReadOnly());
+                super.doBegin(transaction, definition);
+            }
+        };
+        var bloomFilter = new EmailBloomFilter(jdbcTemplate, transactionManager);
+        ReflectionTestUtils.setField(bloomFilter, "enabled", true);
+        ReflectionTestUtils.setField(bloomFilter, "expectedInsertions", 1_000L);
+        ReflectionTestUtils.setField(bloomFilter, "falsePositiveRate", 0.001);
+        ReflectionTestUtils.setField(bloomFilter, "maxMemoryBytes", 1_024L * 1_024);
+        ReflectionTestUtils.setField(bloomFilter, "warmUpFetchSize", 100);
+        bloomFilter.init();
+
+        assertTrue(bloomFilter.mightContain("new@example.com"));
+
+        bloomFilter.warmUp();
+        assertTrue(readOnlyScan.get());
+        assertTrue(bloomFilter.mightContain("stored@example.com"));
+        assertFalse(bloomFilter.mightContain("new@example.com"));
+
+        bloomFilter.put("new@example.com");
+        assertTrue(bloomFilter.mightContain("new@example.com"));
+        dataSource.shutdown();
+    }
+
+    @Test
+    void shouldWarmUpInTheBackground() throws Exception {
+        var dataSource = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+        var jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE users (email VARCHAR(255))");
+        jdbcTemplate.update("INSERT INTO users (email) VALUES ('stored@example.com')");
+
+        var scanning = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var transactionManager = new DataSourceTransactionManager(dataSource) {
+            @Override
+            protected void doBegin(Object transaction, TransactionDefinition definition) {
+                scanning.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.doBegin(transaction, definition);
+            }
+        };
+        var bloomFilter = new EmailBloomFilter(jdbcTemplate, transactionManager);
+        ReflectionTestUtils.setField(bloomFilter, "enabled", true);
+        ReflectionTestUtils.setField(bloomFilter, "expectedInsertions", 1_000L);
+        ReflectionTestUtils.setField(bloomFilter, "falsePositiveRate", 0.001);
+        ReflectionTestUtils.setField(bloomFilter, "maxMemoryBytes", 1_024L * 1_024);
+        ReflectionTestUtils.setField(bloomFilter, "warmUpFetchSize", 100);
+        bloomFilter.init();
+
+        try {
+            bloomFilter.start();
+            assertTrue(scanning.await(5, TimeUnit.SECONDS));
+            assertTrue(bloomFilter.mightContain("new@example.com"));
+            bloomFilter.put("signed-up@example.com");
+        } finally {
+            release.countDown();
+        }
+
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (bloomFilter.mightContain("new@example.com") && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+        assertFalse(bloomFilter.mightContain("new@example.com"));
+        assertTrue(bloomFilter.mightContain("stored@example.com"));
+        assertTrue(bloomFilter.mightContain("signed-up@example.com"));
+        bloomFilter.shutdown();
+        dataSource.shutdown();
+    }
+}
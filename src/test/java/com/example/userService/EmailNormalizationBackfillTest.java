@@ -0,0 +1,96 @@
+package com.example.userService;
+
+import com.example.userService.service.EmailNormalizationBackfill;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmailNormalizationBackfillTest {
+
+    private EmbeddedDatabase dataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private EmailNormalizationBackfill backfill;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new EmbeddedDatabaseBuilder().setType(EmbeddedDatabaseType.H2).generateUniqueName(true).build();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE users (id UUID PRIMARY KEY, email VARCHAR(255) NOT NULL UNIQUE, "
+                + "email_normalized VARCHAR(255) UNIQUE)");
+
+        backfill = new EmailNormalizationBackfill(jdbcTemplate, new NamedParameterJdbcTemplate(jdbcTemplate),
+                new DataSourceTransactionManager(dataSource));
+        ReflectionTestUtils.setField(backfill, "batchSize", 2);
+        ReflectionTestUtils.setField(backfill, "pauseMs", 0L);
+    }
+
+    @AfterEach
+    void tearDown() {
+        dataSource.shutdown();
+    }
+
+    @Test
+    void shouldNormalizeEveryRowInBatches() {
+        for (int i = 0; i < 5; i++) {
+            insert("User" + i + "@Example.com", null);
+        }
+        insert("new@example.com", "new@example.com");
+
+        assertFalse(backfill.isComplete());
+        backfill.run();
+
+        assertTrue(backfill.isComplete());
+        var normalized = jdbcTemplate.queryForList("SELECT email, email_normalized FROM users").stream()
+                .collect(Collectors.toMap(row -> (String) row.get("email"), row -> (String) row.get("email_normalized")));
+        assertEquals(6, normalized.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals("user" + i + "@example.com", normalized.get("User" + i + "@Example.com"));
+        }
+    }
+
+    @Test
+    void shouldLeaveCaseDuplicatesForManualMerge() {
+        insert("Same@Example.com", null);
+        insert("SAME@example.com", null);
+        insert("same@example.com", "same@example.com");
+        insert("other@example.com", null);
+
+        backfill.run();
+
+        assertTrue(backfill.isComplete());
+        assertEquals(Map.of("same@example.com", 1, "other@example.com", 1), jdbcTemplate.queryForList(
+                        "SELECT email_normalized FROM users WHERE email_normalized IS NOT NULL", String.class).stream()
+                .collect(Collectors.toMap(email -> email, email -> 1, Integer::sum)));
+        assertEquals(2, jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM users WHERE email_normalized IS NULL", Integer.class));
+    }
+
+    @Test
+    void shouldDeclareRowsNormalizedWhenDisabled() {
+        ReflectionTestUtils.setField(backfill, "enabled", false);
+
+        backfill.start();
+
+        assertTrue(backfill.isComplete());
+    }
+
+    private void insert(String email, String emailNormalized) {
+        jdbcTemplate.update("INSERT INTO users (id, email, email_normalized) VALUES (?, ?, ?)",
+                UUID.randomUUID(), email, emailNormalized);
+    }
+}
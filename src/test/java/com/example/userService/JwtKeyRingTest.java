@@ -0,0 +1,243 @@
+package com.example.userService;
+
+import com.example.userService.security.JwtKeyRing;
+import com.example.userService.security.JwtUtil;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.FileInputStream;
+import java.nio.file.Path;
+import java.security.KeyStore;
+import java.security.PrivateKey;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JwtKeyRingTest {
+
+    private static final String SECRET =
+            "NzQzZDYxZjctNjQyYi00YjE0LWEzNmEtZjQ2YTljMTY2YTg2MjY1NDM5NzktZWZhZi00NDM5LTk2ODgtODhjODExOTk1NTc4";
+
+    private static final String PASSWORD = "changeit";
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldSignWithActiveKeyAndPublishIt() throws Exception {
+        var keystore = tempDir.resolve("jwt.p12");
+        generateKey(keystore, "key-1", null);
+        var keyRing = keyRing(keystore);
+        var jwtUtil = jwtUtil(keyRing);
+
+        var token = jwtUtil.generateToken("a@b.com");
+
+        var header = decodeHeader(token);
+        assertTrue(header.contains("\"kid\":\"key-1\""), header);
+        assertTrue(header.contains("\"alg\":\"ES256\""), header);
+        assertEquals("a@b.com", jwtUtil.getUsernameFromToken(token));
+        assertEquals(List.of("key-1"), keyIds(keyRing));
+        var jwk = jwks(keyRing).get(0);
+        assertEquals("EC", jwk.get("kty"));
+        assertEquals("P-256", jwk.get("crv"));
+        assertEquals(32, Base64.getUrlDecoder().decode((String) jwk.get("x")).length);
+        keyRing.shutdown();
+    }
+
+    @Test
+    void shouldPublishNewKeyBeforeSigningWithIt() throws Exception {
+        var keystore = tempDir.resolve("jwt.p12");
+        generateKey(keystore, "key-1", null);
+        var keyRing = keyRing(keystore);
+        var jwtUtil = jwtUtil(keyRing);
+
+        generateKey(keystore, "key-2", "+1H");
+        keyRing.reload();
+
+        assertEquals(List.of("key-1", "key-2"), keyIds(keyRing));
+        assertEquals("key-1", keyRing.getSigningKey().getKeyId());
+        var tokenFromNewKey = Jwts.builder()
+                .setHeaderParam("kid", "key-2")
+                .setSubject("a@b.com")
+                .signWith(privateKey(keystore, "key-2"), SignatureAlgorithm.ES256)
+                .compact();
+        assertEquals("a@b.com", jwtUtil.getUsernameFromToken(tokenFromNewKey));
+        keyRing.shutdown();
+    }
+
+    @Test
+    void shouldKeepSigningKeyWhenReloadLeavesNoKeyThatCanSign() throws Exception {
+        var keystore = tempDir.resolve("jwt.p12");
+        generateKey(keystore, "key-1", null);
+        var keyRing = keyRing(keystore);
+        var jwtUtil = jwtUtil(keyRing, false);
+        var issuedBefore = jwtUtil.generateToken("a@b.com");
+
+        generateKey(keystore, "key-2", "+1H");
+        deleteKey(keystore, "key-1");
+
+        assertThrows(IllegalStateException.class, keyRing::reload);
+        assertEquals("key-1", keyRing.getSigningKey().getKeyId());
+        assertEquals(List.of("key-1"), keyIds(keyRing));
+        assertTrue(jwtUtil.isValidToken(issuedBefore));
+        assertTrue(jwtUtil.isValidToken(jwtUtil.generateToken("a@b.com")));
+        keyRing.shutdown();
+    }
+
+    @Test
+    void shouldStopServingCachedClaimsOfRemovedKeys() throws Exception {
+        var keystore = tempDir.resolve("jwt.p12");
+        generateKey(keystore, "key-1", null);
+        var keyRing = keyRing(keystore);
+        var jwtUtil = jwtUtil(keyRing, false, 100);
+        var token = jwtUtil.generateToken("a@b.com");
+        assertTrue(jwtUtil.isValidToken(token));
+
+        generateKey(keystore, "key-2", "-1H");
+        deleteKey(keystore, "key-1");
+        keyRing.reload();
+
+        assertEquals("key-2", keyRing.getSigningKey().getKeyId());
+        assertFalse(jwtUtil.isValidToken(token));
+        assertTrue(jwtUtil.isValidToken(jwtUtil.generateToken("a@b.com")));
+        keyRing.shutdown();
+    }
+
+    @Test
+    void shouldRejectUnknownKeyIdAndAcceptHmacTokens() throws Exception {
+        var keystore = tempDir.resolve("jwt.p12");
+        generateKey(keystore, "key-1", null);
+        generateKey(tempDir.resolve("other.p12"), "key-1", null);
+        var jwtUtil = jwtUtil(keyRing(keystore));
+
+        var unknown = Jwts.builder()
+                .setHeaderParam("kid", "key-9")
+                .setSubject("a@b.com")
+                .signWith(privateKey(keystore, "key-1"), SignatureAlgorithm.ES256)
+                .compact();
+        var forged = Jwts.builder()
+                .setHeaderParam("kid", "key-1")
+                .setSubject("a@b.com")
+                .signWith(privateKey(tempDir.resolve("other.p12"), "key-1"), SignatureAlgorithm.ES256)
+                .compact();
+        var hmac = jwtUtil(keyRing(null)).generateToken("a@b.com");
+
+        assertFalse(jwtUtil.isValidToken(unknown));
+        assertFalse(jwtUtil.isValidToken(forged));
+        assertTrue(jwtUtil.isValidToken(hmac));
+    }
+
+    @Test
+    void shouldRejectHmacTokensWhenLegacyPathIsDisabled() throws Exception {
+        var keystore = tempDir.resolve("jwt.p12");
+        generateKey(keystore, "key-1", null);
+        var keyRing = keyRing(keystore);
+        var jwtUtil = jwtUtil(keyRing, false);
+
+        var hmac = jwtUtil(keyRing(null)).generateToken("a@b.com");
+
+        assertFalse(jwtUtil.isValidToken(hmac));
+        assertTrue(jwtUtil.isValidToken(jwtUtil.generateToken("a@b.com")));
+        assertThrows(IllegalStateException.class, () -> jwtUtil(keyRing(null), false));
+        keyRing.shutdown();
+    }
+
+    @Test
+    void shouldGrantAdminAuthorityOnlyToConfiguredEmails() throws Exception {
+        var jwtUtil = jwtUtil(keyRing(null), "Admin@Example.com");
+
+        var admin = jwtUtil.getClaimsFromToken(jwtUtil.generateToken("admin@example.com"));
+        var user = jwtUtil.getClaimsFromToken(jwtUtil.generateToken("user@example.com"));
+
+        assertEquals(List.of(JwtUtil.ADMIN_AUTHORITY), admin.get(JwtUtil.AUTHORITIES_CLAIM));
+        assertNull(user.get(JwtUtil.AUTHORITIES_CLAIM));
+    }
+
+    private static JwtKeyRing keyRing(Path keystore) throws Exception {
+        var keyRing = new JwtKeyRing();
+        ReflectionTestUtils.setField(keyRing, "path", keystore == null ? "" : keystore.toString());
+        ReflectionTestUtils.setField(keyRing, "type", "PKCS12");
+        ReflectionTestUtils.setField(keyRing, "password", PASSWORD);
+        ReflectionTestUtils.setField(keyRing, "activeAlias", "");
+        ReflectionTestUtils.setField(keyRing, "reloadIntervalMs", 60_000L);
+        keyRing.init();
+        return keyRing;
+    }
+
+    private static JwtUtil jwtUtil(JwtKeyRing keyRing, String... adminEmails) {
+        return jwtUtil(keyRing, true, adminEmails);
+    }
+
+    private static JwtUtil jwtUtil(JwtKeyRing keyRing, boolean legacyHmacEnabled, String... adminEmails) {
+        return jwtUtil(keyRing, legacyHmacEnabled, 0, adminEmails);
+    }
+
+    private static JwtUtil jwtUtil(JwtKeyRing keyRing, boolean legacyHmacEnabled, int cacheMaxSize,
+                                   String... adminEmails) {
+        var jwtUtil = new JwtUtil(keyRing, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(jwtUtil, "legacyHmacEnabled", legacyHmacEnabled);
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 3_600_000L);
+        ReflectionTestUtils.setField(jwtUtil, "cacheMaxSize", cacheMaxSize);
+        ReflectionTestUtils.setField(jwtUtil, "adminEmails", adminEmails);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Map<String, Object>> jwks(JwtKeyRing keyRing) {
+        return (List<Map<String, Object>>) keyRing.getJwks().get("keys");
+    }
+
+    private static List<Object> keyIds(JwtKeyRing keyRing) {
+        return jwks(keyRing).stream().map(jwk -> jwk.get("kid")).sorted().collect(Collectors.toList());
+    }
+
+    private static String decodeHeader(String token) {
+        return new String(Base64.getUrlDecoder().decode(token.substring(0, token.indexOf('.'))));
+    }
+
+    private static PrivateKey privateKey(Path keystore, String alias) throws Exception {
+        var keyStore = KeyStore.getInstance("PKCS12");
+        try (var input = new FileInputStream(keystore.toFile())) {
+            keyStore.load(input, PASSWORD.toCharArray());
+        }
+        return (PrivateKey) keyStore.getKey(alias, PASSWORD.toCharArray());
+    }
+
+    private static void deleteKey(Path keystore, String alias) throws Exception {
+        keytool(List.of("-delete", "-alias", alias, "-storetype", "PKCS12",
+                "-keystore", keystore.toString(), "-storepass", PASSWORD));
+    }
+
+    /**
+     * Adds an EC P-256 key to a PKCS12 keystore with {@code keytool}, as an operator would.
+     */
+    private static void generateKey(Path keystore, String alias, String startDate) throws Exception {
+        var command = new ArrayList<>(List.of(
+                "-genkeypair", "-alias", alias, "-keyalg", "EC", "-groupname", "secp256r1",
+                "-dname", "CN=" + alias, "-validity", "30", "-storetype", "PKCS12",
+                "-keystore", keystore.toString(), "-storepass", PASSWORD));
+        if (startDate != null) {
+            command.addAll(List.of("-startdate", startDate));
+        }
+        keytool(command);
+    }
+
+    private static void keytool(List<String> arguments) throws Exception {
+        var command = new ArrayList<String>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "keytool").toString());
+        command.addAll(arguments);
+        var process = new ProcessBuilder(command).redirectErrorStream(true).start();
+        var output = new String(process.getInputStream().readAllBytes());
+        assertEquals(0, process.waitFor(), output);
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.userService;
+
+import com.example.userService.entity.User;
+import com.example.userService.repository.UserRepository;
+import com.example.userService.service.LoginWriteBehind;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static com.example.userService.TestUsers.newUser;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "user.login.write-behind.flush-interval-ms=600000",
+        "user.login.write-behind.max-attempts=2"
+})
+@Import({LoginWriteBehind.class, SimpleMeterRegistry.class})
+class LoginWriteBehindTest {
+
+    @Autowired
+    private LoginWriteBehind loginWriteBehind;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Test
+    void shouldWriteOnlyLatestLoginPerUserOnFlush() {
+        var user = newUser("test@example.com");
+        userRepository.insert(user);
+
+        var firstLogin = LocalDateTime.now().plusMinutes(1).truncatedTo(ChronoUnit.MILLIS);
+        var secondLogin = firstLogin.plusMinutes(1);
+        loginWriteBehind.enqueue(user.getId(), secondLogin, "second-token");
+        loginWriteBehind.enqueue(user.getId(), firstLogin, "first-token");
+        loginWriteBehind.flush();
+        testEntityManager.clear();
+
+        var stored = userRepository.findById(user.getId()).orElseThrow();
+        assertEquals(secondLogin, stored.getLastLogin());
+        assertEquals("second-token", stored.getToken());
+    }
+
+    @Test
+    void shouldWriteGoodRowsOfFailedBatchAndDropRowThatKeepsFailing() {
+        var good = newUser("good@example.com");
+        var bad = newUser("bad@example.com");
+        userRepository.insert(good);
+        userRepository.insert(bad);
+
+        var login = LocalDateTime.now().plusMinutes(1).truncatedTo(ChronoUnit.MILLIS);
+        loginWriteBehind.enqueue(good.getId(), login, "good-token");
+        loginWriteBehind.enqueue(bad.getId(), login, "t".repeat(2000));
+        loginWriteBehind.flush();
+        testEntityManager.clear();
+
+        assertEquals("good-token", userRepository.findById(good.getId()).orElseThrow().getToken());
+        assertEquals(1, loginWriteBehind.pendingCount());
+
+        loginWriteBehind.flush();
+
+        assertEquals(0, loginWriteBehind.pendingCount());
+    }
+}
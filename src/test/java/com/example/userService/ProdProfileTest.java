@@ -0,0 +1,54 @@
+package com.example.userService;
+
+import com.example.userService.entity.User;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs the {@code prod} profile against H2 in PostgreSQL mode: the schema comes from the Flyway migrations and
+ * Hibernate only validates that it matches the entities. Only what differs from the default profile is checked
+ * here; the repository behaviour itself is covered by {@link UserRepositoryTest}.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:prod;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.driverClassName=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.jpa.hibernate.ddl-auto=validate"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("prod")
+class ProdProfileTest {
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${spring.jpa.open-in-view}")
+    private boolean openInView;
+
+    @Test
+    void shouldCreateTheSchemaFromTheMigrations() {
+        var versions = jdbcTemplate.queryForList(
+                "SELECT version FROM flyway_schema_history WHERE success AND version IS NOT NULL ORDER BY installed_rank", String.class);
+
+        assertEquals(List.of("1", "2", "2.1"), versions);
+        assertFalse(openInView);
+    }
+
+    @Test
+    void shouldLookUpEmailsThroughTheUniqueIndex() {
+        var plan = jdbcTemplate.queryForObject(
+                "EXPLAIN SELECT id FROM users WHERE email_normalized = 'test@example.com'", String.class);
+
+        assertTrue(plan.contains(User.EMAIL_NORMALIZED_CONSTRAINT), plan);
+    }
+}
@@ -0,0 +1,91 @@
+package com.example.userService;
+
+import com.example.userService.exceptions.InvalidRefreshTokenException;
+import com.example.userService.security.RefreshTokenStore;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RefreshTokenStoreTest {
+
+    private SimpleMeterRegistry registry;
+
+    private RefreshTokenStore store;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        store = new RefreshTokenStore(registry);
+        ReflectionTestUtils.setField(store, "expiration", 60_000L);
+        ReflectionTestUtils.setField(store, "maxSessions", 10L);
+        ReflectionTestUtils.setField(store, "maxTokens", 1_000L);
+        store.init();
+    }
+
+    @Test
+    void shouldRotateWithinSession() {
+        var first = store.issue("a@b.com");
+
+        var second = store.rotate(first.getToken());
+
+        assertNotEquals(first.getToken(), second.getToken());
+        assertEquals(first.getSessionId(), second.getSessionId());
+        assertEquals("a@b.com", second.getSubject());
+        assertEquals(first.getSessionId(), store.rotate(second.getToken()).getSessionId());
+        assertThrows(InvalidRefreshTokenException.class, () -> store.rotate("unknown"));
+    }
+
+    @Test
+    void shouldRevokeSessionWhenConsumedTokenIsReused() {
+        var first = store.issue("a@b.com");
+        var second = store.rotate(first.getToken());
+
+        assertThrows(InvalidRefreshTokenException.class, () -> store.rotate(first.getToken()));
+        assertThrows(InvalidRefreshTokenException.class, () -> store.rotate(second.getToken()));
+        assertEquals(0, registry.get("jwt.refresh.sessions.active").gauge().value());
+    }
+
+    @Test
+    void shouldRevokeSessionsOfUser() {
+        var first = store.issue("a@b.com");
+        var second = store.issue("a@b.com");
+        var other = store.issue("c@d.com");
+
+        store.revokeSession(first.getSessionId());
+        assertThrows(InvalidRefreshTokenException.class, () -> store.rotate(first.getToken()));
+
+        store.revokeAll("a@b.com");
+        assertThrows(InvalidRefreshTokenException.class, () -> store.rotate(second.getToken()));
+        assertEquals("c@d.com", store.rotate(other.getToken()).getSubject());
+    }
+
+    @Test
+    void shouldEvictSessionsBeyondMaximumSize() throws Exception {
+        var issued = new ArrayList<RefreshTokenStore.IssuedToken>();
+        for (int i = 0; i < 100; i++) {
+            issued.add(store.issue("user" + i + "@b.com"));
+        }
+
+        var gauge = registry.get("jwt.refresh.sessions.active").gauge();
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (gauge.value() > 10 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(gauge.value() <= 10, "sessions: " + gauge.value());
+        int refreshed = 0;
+        for (var token : issued) {
+            try {
+                store.rotate(token.getToken());
+                refreshed++;
+            } catch (InvalidRefreshTokenException e) {
+                // evicted: the client logs in again
+            }
+        }
+        assertTrue(refreshed <= 10, "refreshed: " + refreshed);
+    }
+}
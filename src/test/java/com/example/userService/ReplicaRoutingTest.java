@@ -0,0 +1,139 @@
+package com.example.userService;
+
+import com.example.userService.config.ReplicaDataSourceConfig;
+import com.example.userService.entity.User;
+import com.example.userService.factory.UserServiceDtoFactory;
+import com.example.userService.repository.UserRepository;
+import com.example.userService.repository.UserSearchCriteria;
+import com.example.userService.service.BlockingCallExecutor;
+import com.example.userService.service.EmailNormalizationBackfill;
+import com.example.userService.service.ReplicaStickiness;
+import com.example.userService.service.UserCache;
+import com.example.userService.service.UserListingService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManagerFactory;
+import javax.sql.DataSource;
+import java.util.UUID;
+
+import static com.example.userService.TestUsers.newUser;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs against two in-memory H2 databases with the same schema standing for the primary and a replica. Nothing
+ * replicates between them, which makes the database answering each query visible.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:primary;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "spring.flyway.enabled=true",
+        "spring.flyway.locations=classpath:db/migration,classpath:db/vendor/{vendor}",
+        "spring.jpa.hibernate.ddl-auto=validate",
+        "datasource.replica.enabled=true",
+        "datasource.replica.url=jdbc:h2:mem:replica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "datasource.replica.stickiness-ms=300",
+        "user.cache.enabled=false"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({ReplicaDataSourceConfig.class, UserCache.class, ReplicaStickiness.class, BlockingCallExecutor.class,
+        EmailNormalizationBackfill.class, UserListingService.class, UserServiceDtoFactory.class, SimpleMeterRegistry.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class ReplicaRoutingTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private UserCache userCache;
+
+    @Autowired
+    private UserListingService userListingService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primaryDataSource;
+
+    @Autowired
+    @Qualifier("replicaDataSource")
+    private DataSource replicaDataSource;
+
+    private JdbcTemplate primary;
+
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    void setUp() {
+        Flyway.configure()
+                .dataSource(replicaDataSource)
+                .locations("classpath:db/migration", "classpath:db/vendor/h2")
+                .load()
+                .migrate();
+        primary = new JdbcTemplate(primaryDataSource);
+        replica = new JdbcTemplate(replicaDataSource);
+        for (var database : new JdbcTemplate[]{primary, replica}) {
+            database.execute("DELETE FROM phone");
+            database.execute("DELETE FROM users");
+        }
+    }
+
+    @Test
+    void shouldWriteToPrimaryAndServeReadOnlyTransactionsFromReplica() {
+        userRepository.insert(newUser("written@example.com"));
+        replica.update("INSERT INTO users (id, email, email_normalized, is_active) VALUES (?, ?, ?, TRUE)",
+                UUID.randomUUID(), "replicated@example.com", "replicated@example.com");
+
+        assertEquals(1, count(primary, "written@example.com"));
+        assertEquals(0, count(replica, "written@example.com"));
+        assertTrue(userRepository.findByEmailNormalized("written@example.com").isEmpty());
+        assertTrue(userRepository.findByEmailNormalized("replicated@example.com").isPresent());
+        var listed = userListingService.listUsers(UserSearchCriteria.builder().build(), null, 10).getUsers();
+        assertEquals(1, listed.size());
+        assertEquals("replicated@example.com", listed.get(0).getEmail());
+
+        var readWrite = new TransactionTemplate(transactionManager);
+        assertTrue(readWrite.execute(status -> userRepository.findByEmailNormalized("written@example.com")).isPresent());
+    }
+
+    @Test
+    void shouldReadRecentWritesFromPrimaryUntilTheWindowEnds() throws InterruptedException {
+        userRepository.insert(newUser("new@example.com"));
+        userCache.invalidate("new@example.com");
+
+        assertTrue(userCache.findByEmail("New@Example.com").isPresent());
+
+        Thread.sleep(500);
+        assertTrue(userCache.findByEmail("new@example.com").isEmpty());
+    }
+
+    @Test
+    void shouldReleaseConnectionsAfterEachTransaction() {
+        assertEquals(PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION,
+                entityManagerFactory.getProperties().get(AvailableSettings.CONNECTION_HANDLING));
+    }
+
+    private static int count(JdbcTemplate database, String email) {
+        return database.queryForObject("SELECT COUNT(*) FROM users WHERE email = ?", Integer.class, email);
+    }
+}
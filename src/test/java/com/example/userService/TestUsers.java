@@ -0,0 +1,52 @@
+package com.example.userService;
+
+import com.example.userService.entity.Phone;
+import com.example.userService.entity.User;
+
+import java.time.LocalDateTime;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Users ready to be stored by the tests that need rows in the {@code users} table.
+ */
+final class TestUsers {
+
+    private TestUsers() {
+    }
+
+    /**
+     * @param email the email to register
+     * @return an active user without phones, created and last logged in now
+     */
+    static User newUser(String email) {
+        return User.builder()
+                .id(UUID.randomUUID())
+                .email(email)
+                .emailNormalized(User.normalizeEmail(email))
+                .password("encoded")
+                .created(LocalDateTime.now())
+                .lastLogin(LocalDateTime.now())
+                .isActive(true)
+                .phones(Set.of())
+                .build();
+    }
+
+    /**
+     * Gives the user a single phone.
+     *
+     * @param user        the user to update
+     * @param countryCode the country code of the phone
+     * @return the same user
+     */
+    static User withPhone(User user, String countryCode) {
+        var phone = new Phone();
+        phone.setId(UUID.randomUUID());
+        phone.setNumber(1234L);
+        phone.setCityCode(1);
+        phone.setCountryCode(countryCode);
+        phone.setUser(user);
+        user.setPhones(Set.of(phone));
+        return user;
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.userService;
+
+import com.example.userService.security.TokenRevocationStore;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenRevocationStoreTest {
+
+    private static final long LIFETIME_MS = 3_600_000;
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void shouldRevokeSingleTokenOnly() throws Exception {
+        var store = store("", new SimpleMeterRegistry());
+        var revoked = claims("a@b.com", Instant.now());
+        var other = claims("a@b.com", Instant.now());
+
+        store.revoke(revoked);
+
+        assertTrue(store.isRevoked(revoked));
+        assertFalse(store.isRevoked(other));
+        store.shutdown();
+    }
+
+    @Test
+    void shouldRevokeEveryTokenIssuedUpToCutoff() throws Exception {
+        var store = store("", new SimpleMeterRegistry());
+        var now = Instant.now();
+        var older = claims("a@b.com", now.minusSeconds(600));
+        var otherUser = claims("c@d.com", now.minusSeconds(600));
+        var newer = claims("a@b.com", now.plusSeconds(5));
+
+        store.revokeAll("a@b.com", now);
+
+        assertTrue(store.isRevoked(older));
+        assertFalse(store.isRevoked(otherUser));
+        assertFalse(store.isRevoked(newer));
+        store.shutdown();
+    }
+
+    @Test
+    void shouldAcceptTokenSignedInWithinTheCutoffSecond() throws Exception {
+        var store = store("", new SimpleMeterRegistry());
+        var loggedOutAt = Instant.now().truncatedTo(ChronoUnit.SECONDS).plusMillis(400);
+        var beforeLogout = claims("a@b.com", loggedOutAt.minusSeconds(1));
+        var signedIn = claims("a@b.com", loggedOutAt.plusMillis(100));
+
+        store.revokeAll("a@b.com", loggedOutAt);
+
+        assertTrue(store.isRevoked(beforeLogout));
+        assertFalse(store.isRevoked(signedIn));
+        store.shutdown();
+    }
+
+    @Test
+    void shouldRecoverLiveRevocationsAndCompactJournal() throws Exception {
+        var journal = tempDir.resolve("revocations.log");
+        var now = Instant.now();
+        var live = claims("a@b.com", now);
+        var expired = claims("c@d.com", now.minusMillis(LIFETIME_MS * 2));
+        Files.write(journal, List.of(
+                "J " + expired.getExpiration().getTime() + " " + expired.getId(),
+                "U " + now.minusMillis(LIFETIME_MS * 2).getEpochSecond() + " c@d.com",
+                "J not-a-number broken",
+                "J " + live.getExpiration().getTime()));
+
+        var first = store(journal.toString(), new SimpleMeterRegistry());
+        first.revoke(live);
+        first.revokeAll("e@f.com", now);
+        first.shutdown();
+
+        var registry = new SimpleMeterRegistry();
+        var second = store(journal.toString(), registry);
+
+        assertTrue(second.isRevoked(live));
+        assertTrue(second.isRevoked(claims("e@f.com", now.minusSeconds(1))));
+        assertFalse(second.isRevoked(claims("c@d.com", now.minusSeconds(1))));
+        assertEquals(2, registry.get("jwt.revocations.active").gauge().value());
+        assertEquals(2, Files.readAllLines(journal).size());
+        second.shutdown();
+    }
+
+    private static TokenRevocationStore store(String file, SimpleMeterRegistry registry) throws Exception {
+        var store = new TokenRevocationStore(registry);
+        ReflectionTestUtils.setField(store, "bucketMs", 60_000L);
+        ReflectionTestUtils.setField(store, "file", file);
+        ReflectionTestUtils.setField(store, "tokenLifetimeMs", LIFETIME_MS);
+        store.init();
+        return store;
+    }
+
+    private static Claims claims(String subject, Instant issuedAt) {
+        return Jwts.claims()
+                .setId(UUID.randomUUID().toString())
+                .setSubject(subject)
+                .setIssuedAt(Date.from(issuedAt))
+                .setExpiration(Date.from(issuedAt.plusMillis(LIFETIME_MS)));
+    }
+}
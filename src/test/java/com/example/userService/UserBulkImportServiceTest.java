@@ -0,0 +1,178 @@
+package com.example.userService;
+
+import com.example.userService.entity.User;
+import com.example.userService.exceptions.UserAlreadyExistException;
+import com.example.userService.factory.UserServiceFactory;
+import com.example.userService.repository.UserRepository;
+import com.example.userService.service.EmailBloomFilter;
+import com.example.userService.service.PasswordHashingService;
+import com.example.userService.service.UserBulkImportService;
+import com.example.userService.service.UserCache;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.validation.Validation;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class UserBulkImportServiceTest {
+
+    private static final String VALID = "{\"email\":\"%s\",\"password\":\"a2asfGfdfdf4\",\"name\":\"Bulk\","
+            + "\"phones\":[{\"number\":1234,\"cityCode\":1,\"countryCode\":\"57\"}]}";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private UserRepository userRepository;
+
+    private UserBulkImportService bulkImportService;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        var passwordHashingService = mock(PasswordHashingService.class);
+        when(passwordHashingService.encodeOrRunInCaller(any())).thenReturn(CompletableFuture.completedFuture("encoded"));
+        var emailBloomFilter = mock(EmailBloomFilter.class);
+        when(emailBloomFilter.mightContain(any())).thenReturn(true);
+
+        bulkImportService = new UserBulkImportService(userRepository, new UserServiceFactory(mock(PasswordEncoder.class)),
+                passwordHashingService, mock(UserCache.class), emailBloomFilter,
+                Validation.buildDefaultValidatorFactory().getValidator(), objectMapper);
+        ReflectionTestUtils.setField(bulkImportService, "chunkSize", 3);
+    }
+
+    @Test
+    void shouldReportOneResultPerLineInInputOrder() throws Exception {
+        var inserted = new ArrayList<User>();
+        doAnswer(invocation -> inserted.addAll(invocation.getArgument(0))).when(userRepository).insertAll(anyList());
+        when(userRepository.findExistingNormalizedEmails(any())).thenAnswer(invocation -> {
+            Collection<String> emails = invocation.getArgument(0);
+            return emails.stream()
+                    .filter(email -> email.equals("taken@example.com")
+                            || inserted.stream().anyMatch(user -> user.getEmailNormalized().equals(email)))
+                    .collect(Collectors.toSet());
+        });
+
+        var results = importUsers(String.join("\n",
+                String.format(VALID, "one@example.com"),
+                "{\"email\":\"bad\",\"password\":\"short\"}",
+                "",
+                "not json",
+                String.format(VALID, "one@example.com"),
+                String.format(VALID, "taken@example.com"),
+                String.format(VALID, "two@example.com"),
+                String.format(VALID, "Two@Example.com")));
+
+        assertEquals(7, results.size());
+        assertResult(results.get(0), 1, "CREATED");
+        assertResult(results.get(1), 2, "INVALID");
+        assertEquals(2, results.get(1).get("errors").size());
+        assertResult(results.get(2), 4, "INVALID");
+        assertResult(results.get(3), 5, "DUPLICATE");
+        assertResult(results.get(4), 6, "DUPLICATE");
+        assertResult(results.get(5), 7, "CREATED");
+        assertResult(results.get(6), 8, "DUPLICATE");
+        assertEquals(2, inserted.size());
+        assertTrue(inserted.stream().allMatch(user -> user.getPhones().size() == 1 && "encoded".equals(user.getPassword())
+                && user.getToken() == null));
+        verify(userRepository, times(2)).insertAll(anyList());
+    }
+
+    @Test
+    void shouldFallBackToSingleInsertsWhenBatchHitsExistingEmail() throws Exception {
+        when(userRepository.findExistingNormalizedEmails(any())).thenReturn(Set.of());
+        doThrow(new UserAlreadyExistException()).when(userRepository).insertAll(anyList());
+        when(userRepository.insert(any(User.class))).thenAnswer(invocation -> {
+            User user = invocation.getArgument(0);
+            if (user.getEmail().startsWith("raced")) {
+                throw new UserAlreadyExistException();
+            }
+            return user;
+        });
+
+        var results = importUsers(String.format(VALID, "raced@example.com") + "\n" + String.format(VALID, "ok@example.com"));
+
+        assertResult(results.get(0), 1, "DUPLICATE");
+        assertResult(results.get(1), 2, "CREATED");
+    }
+
+    @Test
+    void shouldLeaveHashingQueueToSignUpsDuringImport() throws Exception {
+        var importing = new CountDownLatch(1);
+        var release = new CountDownLatch(1);
+        var encoder = mock(PasswordEncoder.class);
+        when(encoder.encode(any())).thenAnswer(invocation -> {
+            String raw = invocation.getArgument(0).toString();
+            if (raw.equals("a2asfGfdfdf4")) {
+                importing.countDown();
+                release.await();
+            }
+            return "hash-" + raw;
+        });
+        var passwordHashingService = new PasswordHashingService(encoder, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(passwordHashingService, "poolSize", 1);
+        ReflectionTestUtils.setField(passwordHashingService, "queueCapacity", 1);
+        passwordHashingService.init();
+        var emailBloomFilter = mock(EmailBloomFilter.class);
+        bulkImportService = new UserBulkImportService(userRepository, new UserServiceFactory(encoder),
+                passwordHashingService, mock(UserCache.class), emailBloomFilter,
+                Validation.buildDefaultValidatorFactory().getValidator(), objectMapper);
+        ReflectionTestUtils.setField(bulkImportService, "chunkSize", 3);
+
+        var body = String.join("\n", String.format(VALID, "one@example.com"),
+                String.format(VALID, "two@example.com"), String.format(VALID, "three@example.com"));
+        var results = CompletableFuture.supplyAsync(() -> {
+            try {
+                return importUsers(body);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        assertTrue(importing.await(5, TimeUnit.SECONDS));
+        Thread.sleep(100);
+
+        try {
+            var signUp = passwordHashingService.encode("sign-up-password");
+            release.countDown();
+            assertEquals("hash-sign-up-password", signUp.get(5, TimeUnit.SECONDS));
+            assertTrue(results.get(5, TimeUnit.SECONDS).stream()
+                    .allMatch(result -> result.get("status").asText().equals("CREATED")));
+        } finally {
+            release.countDown();
+            passwordHashingService.shutdown();
+        }
+    }
+
+    private List<JsonNode> importUsers(String body) throws Exception {
+        var output = new ByteArrayOutputStream();
+        bulkImportService.importUsers(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), output);
+        var results = new ArrayList<JsonNode>();
+        for (String line : output.toString(StandardCharsets.UTF_8).split("\n")) {
+            results.add(objectMapper.readTree(line));
+        }
+        return results;
+    }
+
+    private static void assertResult(JsonNode result, long line, String status) {
+        assertEquals(line, result.get("line").asLong());
+        assertEquals(status, result.get("status").asText());
+    }
+}
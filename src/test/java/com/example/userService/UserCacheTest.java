@@ -0,0 +1,118 @@
+package com.example.userService;
+
+import com.example.userService.entity.User;
+import com.example.userService.repository.UserRepository;
+import com.example.userService.service.BlockingCallExecutor;
+import com.example.userService.service.EmailNormalizationBackfill;
+import com.example.userService.service.ReplicaStickiness;
+import com.example.userService.service.UserCache;
+import com.example.userService.service.UserCacheInvalidationPublisher;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class UserCacheTest {
+
+    private UserRepository userRepository;
+
+    private UserCacheInvalidationPublisher publisher;
+
+    private EmailNormalizationBackfill emailNormalizationBackfill;
+
+    private UserCache userCache;
+
+    @BeforeEach
+    void setUp() {
+        userRepository = mock(UserRepository.class);
+        publisher = mock(UserCacheInvalidationPublisher.class);
+        emailNormalizationBackfill = mock(EmailNormalizationBackfill.class);
+        when(emailNormalizationBackfill.isComplete()).thenReturn(true);
+        var beanFactory = new StaticListableBeanFactory(Map.of("publisher", publisher));
+        userCache = new UserCache(userRepository, new SimpleMeterRegistry(),
+                beanFactory.getBeanProvider(UserCacheInvalidationPublisher.class), new BlockingCallExecutor(),
+                emailNormalizationBackfill, new ReplicaStickiness());
+        ReflectionTestUtils.setField(userCache, "enabled", true);
+        ReflectionTestUtils.setField(userCache, "maximumSize", 100L);
+        ReflectionTestUtils.setField(userCache, "ttlMs", 60_000L);
+        ReflectionTestUtils.setField(userCache, "negativeTtlMs", 60_000L);
+        userCache.init();
+    }
+
+    @Test
+    void shouldServeRepeatedLookupsFromCache() {
+        var user = User.builder().id(UUID.randomUUID()).email("test@example.com").build();
+        when(userRepository.findWithPhonesByEmailNormalized(eq("test@example.com"))).thenReturn(Optional.of(user));
+
+        assertSame(user, userCache.findByEmail("test@example.com").orElseThrow());
+        assertSame(user, userCache.findByEmail("test@example.com").orElseThrow());
+
+        verify(userRepository, times(1)).findWithPhonesByEmailNormalized("test@example.com");
+    }
+
+    @Test
+    void shouldRethrowLoadFailureWithoutCachingIt() {
+        when(userRepository.findWithPhonesByEmailNormalized(eq("test@example.com")))
+                .thenThrow(new DataAccessResourceFailureException("down"))
+                .thenReturn(Optional.empty());
+
+        assertThrows(DataAccessResourceFailureException.class, () -> userCache.findByEmail("test@example.com"));
+        assertTrue(userCache.findByEmail("test@example.com").isEmpty());
+    }
+
+    @Test
+    void shouldCacheMissingEmailUntilInvalidated() {
+        when(userRepository.findWithPhonesByEmailNormalized(eq("new@example.com"))).thenReturn(Optional.empty());
+
+        assertTrue(userCache.findByEmail("new@example.com").isEmpty());
+        assertTrue(userCache.findByEmail("new@example.com").isEmpty());
+        verify(userRepository, times(1)).findWithPhonesByEmailNormalized("new@example.com");
+
+        userCache.invalidate("new@example.com");
+        userCache.findByEmail("new@example.com");
+
+        verify(userRepository, times(2)).findWithPhonesByEmailNormalized("new@example.com");
+        verify(publisher).publish("new@example.com");
+    }
+
+    @Test
+    void shouldShareOneEntryAcrossCaseVariants() {
+        var user = User.builder().id(UUID.randomUUID()).email("Test@Example.com").build();
+        when(userRepository.findWithPhonesByEmailNormalized(eq("test@example.com"))).thenReturn(Optional.of(user));
+
+        assertSame(user, userCache.findByEmail("Test@Example.com").orElseThrow());
+        assertSame(user, userCache.findByEmail(" test@EXAMPLE.com").orElseThrow());
+        userCache.invalidate("TEST@example.com");
+        userCache.findByEmail("test@example.com");
+
+        verify(userRepository, times(2)).findWithPhonesByEmailNormalized("test@example.com");
+    }
+
+    @Test
+    void shouldFallBackToExactEmailWithoutCachingMissesUntilBackfilled() {
+        when(emailNormalizationBackfill.isComplete()).thenReturn(false);
+        var user = User.builder().id(UUID.randomUUID()).email("Old@Example.com").build();
+        when(userRepository.findWithPhonesByEmailNormalized(eq("old@example.com"))).thenReturn(Optional.empty());
+        when(userRepository.findWithPhonesByEmail(eq("Old@Example.com"))).thenReturn(Optional.of(user));
+
+        assertSame(user, userCache.findByEmail("Old@Example.com").orElseThrow());
+        assertTrue(userCache.findByEmail("old@example.com").isEmpty());
+        verify(userRepository, times(2)).findWithPhonesByEmailNormalized("old@example.com");
+
+        when(emailNormalizationBackfill.isComplete()).thenReturn(true);
+        assertTrue(userCache.findByEmail("Old@Example.com").isEmpty());
+        assertTrue(userCache.findByEmail("Old@Example.com").isEmpty());
+        verify(userRepository, times(3)).findWithPhonesByEmailNormalized("old@example.com");
+        verify(userRepository, times(1)).findWithPhonesByEmail("Old@Example.com");
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.userService;
+
+import com.example.userService.config.SecurityConfig;
+import com.example.userService.controller.UserController;
+import com.example.userService.security.JwtUtil;
+import com.example.userService.security.TokenRevocationStore;
+import com.example.userService.service.IUserService;
+import com.example.userService.service.UserBulkImportService;
+import com.example.userService.service.UserExportService;
+import com.example.userService.service.UserListingService;
+import com.example.userService.service.UserMetrics;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Runs the controller behind the real security filter chain, with tokens resolved by a mocked {@link JwtUtil}.
+ */
+@WebMvcTest(UserController.class)
+@Import({SecurityConfig.class, UserMetrics.class, SimpleMeterRegistry.class})
+class UserControllerSecurityTest {
+
+    private static final String USER_TOKEN = "Bearer user-token";
+
+    private static final String ADMIN_TOKEN = "Bearer admin-token";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private IUserService userService;
+    @MockBean
+    private UserBulkImportService bulkImportService;
+    @MockBean
+    private UserExportService exportService;
+    @MockBean
+    private UserListingService listingService;
+    @MockBean
+    private JwtUtil jwtUtil;
+    @MockBean
+    private TokenRevocationStore revocationStore;
+
+    @BeforeEach
+    void setUp() {
+        var user = Jwts.claims().setSubject("user@example.com");
+        var admin = Jwts.claims().setSubject("admin@example.com");
+        admin.put(JwtUtil.AUTHORITIES_CLAIM, List.of(JwtUtil.ADMIN_AUTHORITY));
+        Mockito.when(jwtUtil.parseClaims("user-token")).thenReturn(Optional.of(user));
+        Mockito.when(jwtUtil.parseClaims("admin-token")).thenReturn(Optional.of(admin));
+    }
+
+    @Test
+    void shouldForbidBulkSignUpToNonAdmins() throws Exception {
+        mockMvc.perform(post("/user/bulk")
+                        .header("Authorization", USER_TOKEN)
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{}\n"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/user/bulk/")
+                        .header("Authorization", USER_TOKEN)
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{}\n"))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(post("/user/bulk")
+                        .header("Authorization", ADMIN_TOKEN)
+                        .contentType(MediaType.APPLICATION_NDJSON)
+                        .content("{}\n"))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void shouldForbidExportToNonAdmins() throws Exception {
+        mockMvc.perform(get("/user/export")
+                        .header("Authorization", USER_TOKEN))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/user/export/")
+                        .header("Authorization", USER_TOKEN))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/user/export")
+                        .header("Authorization", ADMIN_TOKEN))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void shouldForbidListingToNonAdmins() throws Exception {
+        mockMvc.perform(get("/user")
+                        .header("Authorization", USER_TOKEN))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/user/")
+                        .header("Authorization", USER_TOKEN))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/user")
+                        .header("Authorization", ADMIN_TOKEN))
+                .andExpect(status().isOk());
+    }
+}
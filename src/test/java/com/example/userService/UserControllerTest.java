@@ -1,38 +1,66 @@
 package com.example.userService;
 
 import com.example.userService.controller.UserController;
+import com.example.userService.dto.TokenResponse;
+import com.example.userService.exceptions.HashingCapacityExceededException;
+import com.example.userService.exceptions.InvalidCredentialsException;
+import com.example.userService.exceptions.InvalidRefreshTokenException;
 import com.example.userService.exceptions.UserAlreadyExistException;
 import com.example.userService.exceptions.UserNotFoundException;
 import com.example.userService.security.JwtUtil;
+import com.example.userService.security.TokenRevocationStore;
 import com.example.userService.service.IUserService;
+import com.example.userService.service.UserBulkImportService;
+import com.example.userService.service.UserExportService;
+import com.example.userService.service.UserListingService;
+import com.example.userService.service.UserMetrics;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.concurrent.CompletableFuture;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(UserController.class)
 @AutoConfigureMockMvc(addFilters = false)
+@Import({UserMetrics.class, SimpleMeterRegistry.class})
 class UserControllerTest {
 
     @Autowired
     private MockMvc mockMvc;
 
+    @Autowired
+    private MeterRegistry meterRegistry;
+
     @MockBean
     private IUserService userService;
     @MockBean
+    private UserBulkImportService bulkImportService;
+    @MockBean
+    private UserExportService exportService;
+    @MockBean
+    private UserListingService listingService;
+    @MockBean
     private JwtUtil jwtUtil;
+    @MockBean
+    private TokenRevocationStore revocationStore;
 
     @Test
     void shouldReturnBadRequestWhenUserAlreadyExists() throws Exception {
@@ -61,6 +89,9 @@ class UserControllerTest {
                 .andExpect(status().isBadRequest())
                 .andExpect(jsonPath("$.error[0].codigo").value(400))
                 .andExpect(jsonPath("$.error[0].detail").value("email: must be a well-formed email address"));
+        assertEquals(1, meterRegistry.get("user.errors").tag("reason", "validation").counter().count());
+        assertEquals(1, meterRegistry.get("user.operation.stage")
+                .tags("operation", "signup", "stage", "validation").timer().count());
     }
 
     @Test
@@ -78,6 +109,21 @@ class UserControllerTest {
                 .andExpect(jsonPath("$.error[0].detail").value("Internal error: something went wrong"));
     }
 
+    @Test
+    void shouldReturnServiceUnavailableWhenHashingQueueIsFull() throws Exception {
+        String body = Files.readString(Paths.get("src/test/resources/request.json"));
+
+
+        Mockito.when(userService.createUser(Mockito.any())).thenThrow(new HashingCapacityExceededException(2));
+
+        mockMvc.perform(post("/user/sign-up")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content(body))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "2"))
+                .andExpect(jsonPath("$.error[0].codigo").value(503));
+    }
+
     @Test
     void shouldReturnNotFoundErrorWhenLogin() throws Exception {
         String body = Files.readString(Paths.get("src/test/resources/request.json"));
@@ -91,4 +137,53 @@ class UserControllerTest {
                 .andExpect(status().isNotFound());
     }
 
-}
\ No newline at end of file
+
+    @Test
+    void shouldReturnOnlyTokenPairOnRefresh() throws Exception {
+        Mockito.when(userService.refreshToken("old-refresh-token"))
+                .thenReturn(new TokenResponse("new-jwt-token", "new-refresh-token", 900));
+
+        mockMvc.perform(post("/user/token/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\":\"old-refresh-token\"}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.token").value("new-jwt-token"))
+                .andExpect(jsonPath("$.refreshToken").value("new-refresh-token"))
+                .andExpect(jsonPath("$.expiresIn").value(900))
+                .andExpect(jsonPath("$.email").doesNotExist());
+    }
+
+    @Test
+    void shouldReturnUnauthorizedWhenRefreshTokenIsInvalid() throws Exception {
+        Mockito.when(userService.refreshToken(Mockito.any())).thenThrow(new InvalidRefreshTokenException());
+
+        mockMvc.perform(post("/user/token/refresh")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"refreshToken\":\"reused\"}"))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.error[0].detail").value("Invalid refresh token"));
+    }
+
+    @Test
+    void shouldReturnBadRequestForUnsupportedExportFormat() throws Exception {
+        mockMvc.perform(get("/user/export")
+                        .param("format", "xml"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.error[0].detail").value("Unsupported export format"));
+    }
+
+    @Test
+    void shouldReturnUnauthorizedWhenSignInCredentialsAreWrong() throws Exception {
+        Mockito.when(userService.signIn(Mockito.any()))
+                .thenReturn(CompletableFuture.failedFuture(new InvalidCredentialsException()));
+
+        var result = mockMvc.perform(post("/user/sign-in")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"email\":\"test@example.com\",\"password\":\"wrongPassword1\"}"))
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isUnauthorized())
+                .andExpect(jsonPath("$.error[0].detail").value("Invalid email or password"));
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.userService;
+
+import com.example.userService.entity.User;
+import com.example.userService.factory.UserServiceDtoFactory;
+import com.example.userService.repository.UserRepository;
+import com.example.userService.service.UserExportService;
+import com.example.userService.service.UserExportService.Format;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+import static com.example.userService.TestUsers.withPhone;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Runs against a file-backed H2 database that spools large results to disk, so that the users being exported
+ * do not live on the test's own heap. The 1M-user test is tagged {@code memory} and runs in the
+ * {@code memoryTest} task, under a small maximum heap.
+ */
+@DataJpaTest(showSql = false, properties =
+        "spring.datasource.url=jdbc:h2:file:./build/tmp/export-test/users;MAX_MEMORY_ROWS=10000;CACHE_SIZE=8192")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Import({UserExportService.class, UserServiceDtoFactory.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class UserExportServiceTest {
+
+    private static final int GENERATED_USERS = 1_000_000;
+
+    /** Ascending 16-byte ids, much cheaper to index than random UUIDs when generating rows. */
+    private static final String SEQUENTIAL_ID = "CAST(LPAD(CAST(X AS VARCHAR), 32, '0') AS BINARY)";
+
+    @Autowired
+    private UserExportService exportService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.execute("DELETE FROM phone");
+        jdbcTemplate.execute("DELETE FROM users");
+    }
+
+    @Test
+    void shouldExportUsersWithPhonesButWithoutCredentials() throws Exception {
+        userRepository.insert(newUser("first@example.com", "First, Jr."));
+        userRepository.insert(newUser("second@example.com", "Second"));
+
+        var ndjson = new ByteArrayOutputStream();
+        exportService.exportUsers(Format.NDJSON, ndjson);
+        var lines = ndjson.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(2, lines.length);
+        for (var line : lines) {
+            assertTrue(line.contains("\"phones\":[{\"number\":1234,\"cityCode\":1,\"countryCode\":\"57\"}]"), line);
+            assertFalse(line.contains("password"), line);
+            assertFalse(line.contains("token"), line);
+        }
+
+        var csv = new ByteArrayOutputStream();
+        exportService.exportUsers(Format.CSV, csv);
+        var rows = csv.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, rows.length);
+        assertEquals("id,email,name,created,lastLogin,active,phones", rows[0]);
+        assertTrue(csv.toString(StandardCharsets.UTF_8).contains(",first@example.com,\"First, Jr.\","));
+        assertTrue(rows[1].endsWith(",true,1234:1:57"), rows[1]);
+    }
+
+    @Test
+    @Tag("memory")
+    void shouldExportOneMillionUsersWithFlatHeap() throws Exception {
+        int batch = 100_000;
+        for (int start = 1; start <= GENERATED_USERS; start += batch) {
+            jdbcTemplate.update("INSERT INTO users (id, email, name, password, token, is_active, created, last_login) "
+                    + "SELECT " + SEQUENTIAL_ID + ", CONCAT('user', X, '@example.com'), CONCAT('User ', X), 'secret', "
+                    + "'token', TRUE, CURRENT_TIMESTAMP, CURRENT_TIMESTAMP FROM SYSTEM_RANGE(?, ?)", start, start + batch - 1);
+            jdbcTemplate.update("INSERT INTO phone (id, number, city_code, country_code, user_id) "
+                    + "SELECT " + SEQUENTIAL_ID + ", 1234, 1, '57', " + SEQUENTIAL_ID + " FROM SYSTEM_RANGE(?, ?)",
+                    start, start + batch - 1);
+        }
+
+        var output = new LineCountingOutputStream();
+        exportService.exportUsers(Format.NDJSON, output);
+
+        assertEquals(GENERATED_USERS, output.lines);
+    }
+
+    private static User newUser(String email, String name) {
+        var user = TestUsers.newUser(email);
+        user.setName(name);
+        user.setToken("issued-token");
+        return withPhone(user, "57");
+    }
+
+    /**
+     * Discards the export, keeping only the number of records written.
+     */
+    private static final class LineCountingOutputStream extends OutputStream {
+        private long lines;
+
+        @Override
+        public void write(int b) {
+            if (b == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            for (int i = off; i < off + len; i++) {
+                write(b[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.userService;
+
+import com.example.userService.dto.UserResponse;
+import com.example.userService.entity.User;
+import com.example.userService.exceptions.InvalidCursorException;
+import com.example.userService.factory.UserServiceDtoFactory;
+import com.example.userService.repository.UserRepository;
+import com.example.userService.repository.UserSearchCriteria;
+import com.example.userService.service.UserListingService;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+import static com.example.userService.TestUsers.withPhone;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@Import({UserListingService.class, UserServiceDtoFactory.class})
+class UserListingServiceTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2024, 1, 1, 0, 0);
+
+    private static final UserSearchCriteria NO_FILTERS = UserSearchCriteria.builder().build();
+
+    @Autowired
+    private UserListingService listingService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<User> users = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        users.add(newUser("Ana", START, true, "57"));
+        users.add(newUser("Bob", START.plusMinutes(1), true, "1"));
+        users.add(newUser("Bea", START.plusMinutes(1), false, "57"));
+        users.add(newUser("B_x", START.plusMinutes(1), true, "34"));
+        users.add(newUser("Carl", START.plusMinutes(2), true, "57"));
+        users.forEach(userRepository::insert);
+        testEntityManager.clear();
+    }
+
+    @Test
+    void shouldWalkAllUsersInCreatedAndIdOrder() {
+        var all = listingService.listUsers(NO_FILTERS, null, 10).getUsers();
+        assertEquals(users.size(), all.size());
+        assertEquals("Ana", all.get(0).getName());
+        assertEquals("Carl", all.get(4).getName());
+        var expected = all.stream().map(UserResponse::getId).collect(Collectors.toList());
+
+        var seen = new ArrayList<UUID>();
+        String cursor = null;
+        do {
+            var page = listingService.listUsers(NO_FILTERS, cursor, 2);
+            assertTrue(page.getUsers().size() <= 2);
+            page.getUsers().forEach(user -> seen.add(user.getId()));
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertEquals(expected, seen);
+    }
+
+    @Test
+    void shouldApplyFiltersAndLoadPhonesInOneBatch() {
+        var statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        var criteria = UserSearchCriteria.builder().namePrefix("B").active(true).build();
+        var page = listingService.listUsers(criteria, null, 10);
+
+        assertEquals(Set.of("Bob", "B_x"), names(page.getUsers()));
+        assertTrue(page.getUsers().stream().allMatch(user -> user.getPhoneList().size() == 1 && user.getPassword() == null));
+        assertNull(page.getNextCursor());
+        assertEquals(2, statistics.getPrepareStatementCount());
+
+        assertEquals(Set.of("B_x"), names(listingService.listUsers(
+                UserSearchCriteria.builder().namePrefix("B_").build(), null, 10).getUsers()));
+        assertEquals(Set.of("Ana", "Bea", "Carl"), names(listingService.listUsers(
+                UserSearchCriteria.builder().countryCode("57").build(), null, 10).getUsers()));
+    }
+
+    @Test
+    void shouldRejectTamperedCursor() {
+        assertThrows(InvalidCursorException.class, () -> listingService.listUsers(NO_FILTERS, "not-a-cursor", 10));
+    }
+
+    private static Set<String> names(List<UserResponse> users) {
+        return users.stream().map(UserResponse::getName).collect(Collectors.toSet());
+    }
+
+    private static User newUser(String name, LocalDateTime created, boolean active, String countryCode) {
+        var user = TestUsers.newUser(name.toLowerCase() + "@example.com");
+        user.setName(name);
+        user.setCreated(created);
+        user.setLastLogin(created);
+        user.setActive(active);
+        return withPhone(user, countryCode);
+    }
+}
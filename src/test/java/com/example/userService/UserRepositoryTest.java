@@ -0,0 +1,138 @@
+package com.example.userService;
+
+import com.example.userService.entity.Phone;
+import com.example.userService.entity.User;
+import com.example.userService.exceptions.UserAlreadyExistException;
+import com.example.userService.repository.UserRepository;
+import org.hibernate.Hibernate;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.LongStream;
+
+import static com.example.userService.TestUsers.newUser;
+import static org.junit.jupiter.api.Assertions.*;
+
+@DataJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true",
+        "spring.jpa.properties.hibernate.jdbc.batch_size=50",
+        "spring.jpa.properties.hibernate.order_inserts=true"
+})
+class UserRepositoryTest {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TestEntityManager testEntityManager;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void setUp() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    @Test
+    void shouldInsertUserWithSingleStatement() {
+        userRepository.insert(newUser("test@example.com"));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getEntityInsertCount());
+    }
+
+    @Test
+    void shouldStoreTokenLongerThanDefaultColumn() {
+        var user = newUser("test@example.com");
+        user.setToken("t".repeat(600));
+
+        userRepository.insert(user);
+        testEntityManager.clear();
+
+        assertEquals(600, userRepository.findByEmailNormalized("test@example.com").orElseThrow().getToken().length());
+    }
+
+    @Test
+    void shouldInsertPhonesInOneBatchWithoutUpdates() {
+        var user = newUser("test@example.com");
+        user.setPhones(newPhones(user, 3));
+
+        userRepository.insert(user);
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(4, statistics.getEntityInsertCount());
+        assertEquals(0, statistics.getEntityUpdateCount());
+    }
+
+    @Test
+    void shouldPersistNewUserOnSaveWithoutSelect() {
+        var user = newUser("test@example.com");
+        user.setPhones(newPhones(user, 3));
+
+        userRepository.saveAndFlush(user);
+
+        assertEquals(2, statistics.getPrepareStatementCount());
+        assertEquals(0, statistics.getEntityLoadCount());
+    }
+
+    @Test
+    void shouldLoadUserWithPhonesInSingleQuery() {
+        var user = newUser("test@example.com");
+        user.setPhones(newPhones(user, 2));
+        userRepository.insert(user);
+        testEntityManager.clear();
+        statistics.clear();
+
+        var loaded = userRepository.findWithPhonesByEmailNormalized("test@example.com").orElseThrow();
+
+        assertTrue(Hibernate.isInitialized(loaded.getPhones()));
+        assertEquals(2, loaded.getPhones().size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void shouldReplaceStoredPassword() {
+        var user = newUser("test@example.com");
+        userRepository.insert(user);
+
+        assertEquals(1, userRepository.updatePassword(user.getId(), "rehashed"));
+        testEntityManager.clear();
+
+        assertEquals("rehashed", userRepository.findByEmailNormalized("test@example.com").orElseThrow().getPassword());
+    }
+
+    @Test
+    void shouldTranslateDuplicateEmailIntoUserAlreadyExist() {
+        userRepository.insert(newUser("test@example.com"));
+
+        assertThrows(UserAlreadyExistException.class, () -> userRepository.insert(newUser("test@example.com")));
+        assertThrows(UserAlreadyExistException.class, () -> userRepository.insert(newUser("Test@Example.com")));
+    }
+
+    private static Set<Phone> newPhones(User user, int count) {
+        return LongStream.range(0, count)
+                .mapToObj(number -> {
+                    Phone phone = new Phone();
+                    phone.setId(UUID.randomUUID());
+                    phone.setNumber(number);
+                    phone.setCityCode(1);
+                    phone.setCountryCode("57");
+                    phone.setUser(user);
+                    return phone;
+                })
+                .collect(Collectors.toSet());
+    }
+}
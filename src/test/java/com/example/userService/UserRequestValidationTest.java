@@ -0,0 +1,132 @@
+package com.example.userService;
+
+import com.example.userService.dto.UserRequest;
+import com.example.userService.validation.EmailValidator;
+import com.example.userService.validation.PasswordValidator;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.validation.ValidatorFactory;
+import javax.validation.constraints.Email;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
+import java.util.SplittableRandom;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks that the scanning validators of {@link UserRequest} accept exactly what the former regular expressions
+ * did, on random inputs built from the characters the rules care about.
+ */
+class UserRequestValidationTest {
+
+    private static final int SAMPLES = 50_000;
+
+    private static ValidatorFactory validatorFactory;
+
+    private static Validator validator;
+
+    /** The constraints {@link UserRequest} had before the scanning validators. */
+    static class PatternUserRequest {
+        @Email(regexp = "^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+$")
+        @NotNull
+        String email;
+
+        @Pattern(regexp = "^(?=.*[a-z])(?=.*[A-Z])(?=(?:.*\\d.*){2})[A-Za-z\\d]{8,12}$", message = "{password.format}")
+        @NotNull
+        String password;
+    }
+
+    @BeforeAll
+    static void setUp() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+    }
+
+    @AfterAll
+    static void tearDown() {
+        validatorFactory.close();
+    }
+
+    @Test
+    void shouldAcceptTheSamePasswordsAsThePattern() {
+        var random = new SplittableRandom(21);
+        for (int i = 0; i < SAMPLES; i++) {
+            int length = random.nextInt(10) == 0 ? random.nextInt(13, 40) : random.nextInt(6, 14);
+            var password = randomString(random, length, "abcxyzABCXYZ0189", "_ -\n\u00e9\u0661");
+            assertSameOutcome("password", password);
+        }
+    }
+
+    @Test
+    void shouldAcceptTheSameEmailsAsThePattern() {
+        var random = new SplittableRandom(21);
+        for (int i = 0; i < SAMPLES; i++) {
+            var email = new StringBuilder();
+            if (random.nextInt(4) == 0) {
+                email.append(randomString(random, random.nextInt(25), "aZ09+_.-@", "\u00e9 !\""));
+            } else {
+                int localLength = random.nextInt(4) == 0 ? random.nextInt(60, 70) : random.nextInt(0, 12);
+                email.append(randomString(random, localLength, "aZ09+_-..", "@\u00e9"));
+                email.append('@');
+                int labels = random.nextInt(1, 6);
+                for (int label = 0; label < labels; label++) {
+                    int labelLength = random.nextInt(4) == 0 ? random.nextInt(60, 67) : random.nextInt(0, 8);
+                    if (label > 0) {
+                        email.append('.');
+                    }
+                    email.append(randomString(random, labelLength, "aZ09--", "_.\u00e9"));
+                }
+            }
+            assertSameOutcome("email", email.toString());
+        }
+    }
+
+    @Test
+    void shouldKeepTheMessagesAndAcceptNull() {
+        var invalid = new UserRequest("not-an-email", "password", null, null);
+        var messages = validator.validate(invalid).stream()
+                .collect(Collectors.toMap(v -> v.getPropertyPath().toString(), ConstraintViolation::getMessage));
+        var patternMessages = validator.validate(patternRequest("not-an-email", "password")).stream()
+                .collect(Collectors.toMap(v -> v.getPropertyPath().toString(), ConstraintViolation::getMessage));
+
+        assertEquals(patternMessages, messages);
+        assertTrue(EmailValidator.isValid("user@example.com"));
+        assertTrue(PasswordValidator.isValid("a2asfGfdfdf4"));
+        assertTrue(new EmailValidator().isValid(null, null));
+        assertTrue(new PasswordValidator().isValid(null, null));
+    }
+
+    @Test
+    void shouldRejectOversizedInputBeforeScanning() {
+        assertFalse(PasswordValidator.isValid("aA1" + "b".repeat(100_000)));
+        assertFalse(EmailValidator.isValid("a".repeat(64) + "@" + "b".repeat(63) + ".com".repeat(50)));
+    }
+
+    private static void assertSameOutcome(String property, String value) {
+        boolean expected = validator.validateValue(PatternUserRequest.class, property, value).isEmpty();
+        boolean actual = validator.validateValue(UserRequest.class, property, value).isEmpty();
+        assertEquals(expected, actual, () -> property + " '" + value + "'");
+    }
+
+    private static PatternUserRequest patternRequest(String email, String password) {
+        var request = new PatternUserRequest();
+        request.email = email;
+        request.password = password;
+        return request;
+    }
+
+    private static String randomString(SplittableRandom random, int length, String common, String rare) {
+        var chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            var alphabet = random.nextInt(20) == 0 ? rare : common;
+            chars[i] = alphabet.charAt(random.nextInt(alphabet.length()));
+        }
+        return new String(chars);
+    }
+}
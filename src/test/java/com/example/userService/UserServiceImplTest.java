@@ -1,29 +1,54 @@
 package com.example.userService;
 
+import com.example.userService.dto.LoginRequest;
 import com.example.userService.dto.PhoneDto;
+import com.example.userService.dto.TokenResponse;
 import com.example.userService.dto.UserRequest;
 import com.example.userService.dto.UserResponse;
 import com.example.userService.entity.Phone;
 import com.example.userService.entity.User;
+import com.example.userService.exceptions.InvalidCredentialsException;
 import com.example.userService.exceptions.UserAlreadyExistException;
 import com.example.userService.exceptions.UserNotFoundException;
 import com.example.userService.factory.UserServiceDtoFactory;
 import com.example.userService.factory.UserServiceFactory;
+import com.example.userService.security.AdaptivePasswordEncoder;
+import com.example.userService.security.AdaptivePasswordEncoder.Algorithm;
+import com.example.userService.security.JwtFilter;
 import com.example.userService.security.JwtUtil;
+import com.example.userService.security.RefreshTokenStore;
+import com.example.userService.security.TokenRevocationStore;
+import com.example.userService.service.LoginWriteBehind;
+import com.example.userService.service.PasswordHashingService;
+import com.example.userService.service.EmailBloomFilter;
+import com.example.userService.service.UserCache;
+import com.example.userService.service.BlockingCallExecutor;
+import com.example.userService.service.UserMetrics;
 import com.example.userService.service.UserServiceImpl;
+import io.jsonwebtoken.Jwts;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.Spy;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
 
 import java.time.LocalDateTime;
 import java.util.Collections;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicReference;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -41,6 +66,24 @@ class UserServiceImplTest {
     @Mock
     private PasswordEncoder passwordEncoder;
 
+    @Mock
+    private PasswordHashingService passwordHashingService;
+
+    @Mock
+    private LoginWriteBehind loginWriteBehind;
+
+    @Mock
+    private UserCache userCache;
+
+    @Mock
+    private EmailBloomFilter emailBloomFilter;
+
+    @Mock
+    private TokenRevocationStore revocationStore;
+
+    @Mock
+    private RefreshTokenStore refreshTokenStore;
+
     private UserServiceFactory userServiceFactory;
     @Spy
     final UserServiceDtoFactory userServiceDtoFactory = new UserServiceDtoFactory();
@@ -48,15 +91,30 @@ class UserServiceImplTest {
     @InjectMocks
     private UserServiceImpl userService;
 
+    private BlockingCallExecutor blockingCallExecutor;
+
     @BeforeEach
     void setUp() {
 
         MockitoAnnotations.openMocks(this);
         userServiceFactory = spy(new UserServiceFactory(passwordEncoder));
-        userService = new UserServiceImpl(userRepository, jwtUtil, userServiceFactory, userServiceDtoFactory);
+        blockingCallExecutor = new BlockingCallExecutor();
+        ReflectionTestUtils.setField(blockingCallExecutor, "platformPoolSize", 2);
+        blockingCallExecutor.init();
+        userService = new UserServiceImpl(userRepository, jwtUtil, userServiceFactory, userServiceDtoFactory,
+                passwordHashingService, loginWriteBehind, userCache, emailBloomFilter, revocationStore, refreshTokenStore,
+                new UserMetrics(new SimpleMeterRegistry()), blockingCallExecutor);
+        when(refreshTokenStore.issue(anyString())).thenAnswer(invocation ->
+                new RefreshTokenStore.IssuedToken("refresh-token", "session-1", invocation.getArgument(0)));
 
     }
 
+    @AfterEach
+    void tearDown() {
+        RequestContextHolder.resetRequestAttributes();
+        blockingCallExecutor.shutdown();
+    }
+
     @Test
     void shouldCreateUserSuccessfully() {
         UserRequest request = new UserRequest();
@@ -65,16 +123,20 @@ class UserServiceImplTest {
         request.setName("Test User");
         request.setPhones(Set.of(new PhoneDto(null, 12345678L, 1, "57")));
 
-        when(userRepository.findByEmail(eq("test@example.com"))).thenReturn(Optional.empty());
-        when(passwordEncoder.encode(any())).thenReturn("encodedPassword");
-        when(jwtUtil.generateToken(any())).thenReturn("dummy-jwt");
+        when(passwordHashingService.encode(any())).thenReturn(CompletableFuture.completedFuture("encodedPassword"));
+        when(jwtUtil.generateToken(any(), any())).thenReturn("dummy-jwt");
 
-        UserResponse response = userService.createUser(request);
+        UserResponse response = userService.createUser(request).join();
         assertTrue(response.isActive());
         assertNotNull(response.getCreated());
-        verify(jwtUtil).generateToken(anyString());
-        verify(userServiceFactory).from(any(UserRequest.class));
-        verify(userRepository).save(any(User.class));
+        assertEquals("dummy-jwt", response.getToken());
+        assertEquals("refresh-token", response.getRefreshToken());
+        verify(jwtUtil).generateToken("test@example.com", "session-1");
+        verify(userServiceFactory).from(any(UserRequest.class), eq("encodedPassword"));
+        verify(passwordEncoder, never()).encode(any());
+        verify(userRepository).insert(any(User.class));
+        verify(userCache).invalidate("test@example.com");
+        verify(emailBloomFilter).put("test@example.com");
     }
 
     @Test
@@ -83,10 +145,40 @@ class UserServiceImplTest {
         request.setEmail("test@example.com");
         request.setPassword("a2asfGfdfdf4");
 
-        when(userRepository.findByEmail(eq("test@example.com"))).thenReturn(Optional.of(new User()));
+        when(passwordHashingService.encode(any())).thenReturn(CompletableFuture.completedFuture("encodedPassword"));
+        when(userRepository.insert(any(User.class))).thenThrow(new UserAlreadyExistException());
+
+        CompletionException exception = assertThrows(CompletionException.class, () -> userService.createUser(request).join());
+        assertTrue(exception.getCause() instanceof UserAlreadyExistException);
+        assertEquals("User already registered", exception.getCause().getMessage());
+        verify(refreshTokenStore).revokeSession("session-1");
+    }
+
+    @Test
+    void shouldRejectCachedUserBeforeHashing() {
+        UserRequest request = new UserRequest();
+        request.setEmail("test@example.com");
+        request.setPassword("a2asfGfdfdf4");
+
+        when(emailBloomFilter.mightContain("test@example.com")).thenReturn(true);
+        when(userCache.findByEmail(eq("test@example.com"))).thenReturn(Optional.of(new User()));
 
-        RuntimeException exception = assertThrows(UserAlreadyExistException.class, () -> userService.createUser(request));
-        assertEquals("User already registered", exception.getMessage());
+        assertThrows(UserAlreadyExistException.class, () -> userService.createUser(request));
+        verify(passwordHashingService, never()).encode(any());
+    }
+
+    @Test
+    void shouldSkipExistenceCheckWhenBloomFilterRulesEmailOut() {
+        UserRequest request = new UserRequest();
+        request.setEmail("new@example.com");
+        request.setPassword("a2asfGfdfdf4");
+
+        when(emailBloomFilter.mightContain("new@example.com")).thenReturn(false);
+        when(passwordHashingService.encode(any())).thenReturn(CompletableFuture.completedFuture("encodedPassword"));
+
+        userService.createUser(request).join();
+        verify(userCache, never()).findByEmail(any());
+        verify(userRepository).insert(any(User.class));
     }
 
     @Test
@@ -103,22 +195,164 @@ class UserServiceImplTest {
                 .isActive(true)
                 .build();
 
-        when(jwtUtil.getUsernameFromToken(eq("valid-token"))).thenReturn(email);
-        when(userRepository.findByEmail(eq(email))).thenReturn(Optional.of(user));
-        when(jwtUtil.generateToken(eq(email))).thenReturn("new-jwt-token");
+        when(jwtUtil.getClaimsFromToken(eq("valid-token"))).thenReturn(Jwts.claims().setSubject(email));
+        when(userCache.findByEmail(eq(email))).thenReturn(Optional.of(user));
+        when(jwtUtil.generateToken(eq(email), eq("session-1"))).thenReturn("new-jwt-token");
 
-        UserResponse response = userService.login(token);
+        UserResponse response = userService.login(token).join();
 
         assertEquals(email, response.getEmail());
         assertEquals("new-jwt-token", response.getToken());
+        assertEquals("refresh-token", response.getRefreshToken());
         assertNotNull(response.getLastLogin());
+        verify(loginWriteBehind).enqueue(eq(user.getId()), eq(response.getLastLogin()), eq("new-jwt-token"));
+        verify(userRepository, never()).save(any(User.class));
+    }
+
+    @Test
+    void shouldReuseClaimsVerifiedByFilterOnLogin() {
+        String email = "test@example.com";
+        User user = User.builder()
+                .id(UUID.randomUUID())
+                .email(email)
+                .created(LocalDateTime.now())
+                .isActive(true)
+                .build();
+
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.setAttribute(JwtFilter.CLAIMS_ATTRIBUTE, Jwts.claims().setSubject(email));
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        when(userCache.findByEmail(eq(email))).thenReturn(Optional.of(user));
+        when(jwtUtil.generateToken(eq(email), eq("session-1"))).thenReturn("new-jwt-token");
+
+        UserResponse response = userService.login("Bearer valid-token").join();
+
+        assertEquals(email, response.getEmail());
+        verify(jwtUtil, never()).getClaimsFromToken(any());
     }
 
     @Test
     void shouldThrowIfUserNotFoundDuringLogin() {
-        when(jwtUtil.getUsernameFromToken(any())).thenReturn("no-user@example.com");
-        when(userRepository.findByEmail(eq("no-user@example.com"))).thenReturn(Optional.empty());
+        when(jwtUtil.getClaimsFromToken(any())).thenReturn(Jwts.claims().setSubject("no-user@example.com"));
+        when(userCache.findByEmail(eq("no-user@example.com"))).thenReturn(Optional.empty());
+
+        CompletionException exception = assertThrows(CompletionException.class, () -> userService.login("Bearer dummy").join());
+        assertTrue(exception.getCause() instanceof UserNotFoundException);
+    }
+
+    @Test
+    void shouldRefreshTokensWithoutTouchingUserData() {
+        when(refreshTokenStore.rotate("old-refresh-token"))
+                .thenReturn(new RefreshTokenStore.IssuedToken("new-refresh-token", "session-1", "test@example.com"));
+        when(jwtUtil.generateToken("test@example.com", "session-1")).thenReturn("new-jwt-token");
+        when(jwtUtil.getExpiration()).thenReturn(900_000L);
+
+        TokenResponse response = userService.refreshToken("old-refresh-token");
+
+        assertEquals("new-jwt-token", response.getToken());
+        assertEquals("new-refresh-token", response.getRefreshToken());
+        assertEquals(900, response.getExpiresIn());
+        verifyNoInteractions(userRepository, userCache, loginWriteBehind);
+    }
+
+    @Test
+    void shouldRevokeTokenAndSessionOnLogout() {
+        var claims = Jwts.claims().setId("token-id").setSubject("test@example.com");
+        claims.put(JwtUtil.SESSION_CLAIM, "session-1");
+        when(jwtUtil.getClaimsFromToken(eq("valid-token"))).thenReturn(claims);
+
+        userService.logout("Bearer valid-token");
+
+        verify(revocationStore).revoke(claims);
+        verify(refreshTokenStore).revokeSession("session-1");
+    }
+
+    @Test
+    void shouldRevokeAllTokensOfUserOnLogoutAll() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        var claims = Jwts.claims().setSubject("test@example.com");
+        request.setAttribute(JwtFilter.CLAIMS_ATTRIBUTE, claims);
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+
+        userService.logoutAll("Bearer valid-token");
+
+        verify(revocationStore).revoke(claims);
+        verify(revocationStore).revokeAll(eq("test@example.com"), any());
+        verify(refreshTokenStore).revokeAll("test@example.com");
+        verify(jwtUtil, never()).getClaimsFromToken(any());
+    }
+
+    @Test
+    void shouldUpgradeOutdatedHashOnSignIn() {
+        var encoder = new AdaptivePasswordEncoder(Algorithm.BCRYPT, 5, 1024);
+        var stored = new AdaptivePasswordEncoder(Algorithm.BCRYPT, 4, 1024).encode("a2asfGfdfdf4");
+        var user = User.builder()
+                .id(UUID.randomUUID())
+                .email("test@example.com")
+                .password(stored)
+                .created(LocalDateTime.now())
+                .isActive(true)
+                .build();
+        when(userCache.findByEmail("test@example.com")).thenReturn(Optional.of(user));
+        when(jwtUtil.generateToken(eq("test@example.com"), eq("session-1"))).thenReturn("new-jwt-token");
+        var writerThread = new AtomicReference<String>();
+        doAnswer(invocation -> {
+            writerThread.set(Thread.currentThread().getName());
+            return 1;
+        }).when(userRepository).updatePassword(any(), any());
+        var hashing = hashingService(encoder);
+
+        var response = serviceWith(hashing).signIn(new LoginRequest("test@example.com", "a2asfGfdfdf4")).join();
+
+        var rehashed = ArgumentCaptor.forClass(String.class);
+        verify(userRepository).updatePassword(eq(user.getId()), rehashed.capture());
+        assertNotEquals(stored, rehashed.getValue());
+        assertTrue(encoder.matches("a2asfGfdfdf4", rehashed.getValue()));
+        assertFalse(encoder.upgradeEncoding(rehashed.getValue()));
+        assertTrue(writerThread.get().startsWith("blocking-call-"), writerThread.get());
+        verify(userCache).invalidate("test@example.com");
+        assertEquals("new-jwt-token", response.getToken());
+        hashing.shutdown();
+    }
+
+    @Test
+    void shouldRejectWrongPasswordOrUnknownEmailOnSignIn() {
+        var encoder = new AdaptivePasswordEncoder(Algorithm.BCRYPT, 4, 1024);
+        var user = User.builder()
+                .id(UUID.randomUUID())
+                .email("test@example.com")
+                .password(encoder.encode("a2asfGfdfdf4"))
+                .isActive(true)
+                .build();
+        when(userCache.findByEmail("test@example.com")).thenReturn(Optional.of(user));
+        when(userCache.findByEmail("no-user@example.com")).thenReturn(Optional.empty());
+        var hashing = hashingService(encoder);
+        var service = serviceWith(hashing);
+
+        var wrongPassword = assertThrows(CompletionException.class,
+                () -> service.signIn(new LoginRequest("test@example.com", "wrongPassword1")).join());
+        var unknownEmail = assertThrows(CompletionException.class,
+                () -> service.signIn(new LoginRequest("no-user@example.com", "a2asfGfdfdf4")).join());
+
+        assertTrue(wrongPassword.getCause() instanceof InvalidCredentialsException);
+        assertTrue(unknownEmail.getCause() instanceof InvalidCredentialsException);
+        verify(userRepository, never()).updatePassword(any(), any());
+        verify(refreshTokenStore, never()).issue(any());
+        hashing.shutdown();
+    }
+
+    private UserServiceImpl serviceWith(PasswordHashingService hashing) {
+        return new UserServiceImpl(userRepository, jwtUtil, userServiceFactory, userServiceDtoFactory,
+                hashing, loginWriteBehind, userCache, emailBloomFilter, revocationStore, refreshTokenStore,
+                new UserMetrics(new SimpleMeterRegistry()), blockingCallExecutor);
+    }
 
-        assertThrows(UserNotFoundException.class, () -> userService.login("Bearer dummy"));
+    private static PasswordHashingService hashingService(PasswordEncoder encoder) {
+        var hashing = new PasswordHashingService(encoder, new SimpleMeterRegistry());
+        ReflectionTestUtils.setField(hashing, "poolSize", 1);
+        ReflectionTestUtils.setField(hashing, "queueCapacity", 4);
+        hashing.init();
+        return hashing;
     }
-}
\ No newline at end of file
+}